@@ -0,0 +1,566 @@
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stress scenarios and micro-benchmarks for AuctionService.
+// Usage: java AuctionBench <scenario> [args...]
+public class AuctionBench {
+
+    public static void main(String[] args) throws Exception {
+        String scenario = args.length > 0 ? args[0] : "storm";
+        switch (scenario) {
+            case "storm" -> closingStorm(intArg(args, 1, 16));
+            case "batch" -> batchVsSingle(intArg(args, 1, 1000), intArg(args, 2, 20));
+            case "wire" -> wireCodec(intArg(args, 1, 2_000_000));
+            case "dashboard" -> userDashboard(intArg(args, 1, 1_000_000), intArg(args, 2, 100_000));
+            case "outbid" -> biddingWar(intArg(args, 1, 1_000_000));
+            case "analytics" -> analyticsScan(intArg(args, 1, 20_000_000));
+            case "tiered" -> tieredStorage(intArg(args, 1, 200_000), intArg(args, 2, 20));
+            case "listings" -> bulkListings(intArg(args, 1, 200_000), intArg(args, 2, 2));
+            case "sealed" -> sealedAndDutch(intArg(args, 1, 1_000_000), intArg(args, 2, 8));
+            default -> System.out.println("Unknown scenario: " + scenario);
+        }
+    }
+
+    private static int intArg(String[] args, int idx, int def) {
+        return args.length > idx ? Integer.parseInt(args[idx]) : def;
+    }
+
+    // ---------- CLOSING-SECOND STORM ----------
+    // Many threads bid as fast as they can across the original deadline while another thread
+    // keeps running the expiry engine. Bidding stops after a fixed window, so the auction must
+    // then close exactly extendSec after the last accepted bid. Fails loudly on any violation.
+    private static void closingStorm(int threads) throws Exception {
+        OnlineAuctionSystem.AuctionService service = new OnlineAuctionSystem.AuctionService();
+        service.setSoftClose(1, 1);
+        OnlineAuctionSystem.User owner = service.registerUser("owner", "x");
+        List<OnlineAuctionSystem.User> bidders = new ArrayList<>();
+        for (int i = 0; i < threads; i++) bidders.add(service.registerUser("bidder" + i, "x"));
+
+        OnlineAuctionSystem.Auction auction = service.createAuction("Storm Lot", "contention test", 1.0, 1, owner);
+        long id = auction.getId();
+        Instant originalEnd = auction.getEndsAt();
+        Instant stopBidding = originalEnd.plusMillis(1500);
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (OnlineAuctionSystem.User u : bidders) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                Random rnd = new Random(u.getId());
+                while (Instant.now().isBefore(stopBidding)) {
+                    OnlineAuctionSystem.Auction cur = service.getAuction(id);
+                    if (cur.isClosed()) break;
+                    if (service.placeBid(id, u, cur.getCurrentPrice() + 1 + rnd.nextInt(5))) accepted.incrementAndGet();
+                    else rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        futures.add(pool.submit(() -> {
+            start.await();
+            while (!service.getAuction(id).isClosed() || Instant.now().isBefore(stopBidding)) service.expireAuctions();
+            service.expireAuctions();
+            return null;
+        }));
+
+        // hold the storm until just before the original deadline so it straddles the closing second
+        Thread.sleep(Math.max(0, originalEnd.toEpochMilli() - System.currentTimeMillis() - 200));
+        start.countDown();
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        OnlineAuctionSystem.Auction done = service.getAuction(id);
+        List<OnlineAuctionSystem.Bid> bids = done.getBids();
+        check(done.isClosed(), "auction still open after the storm");
+        check(bids.size() == accepted.get(), "accepted " + accepted.get() + " bids but history has " + bids.size());
+        check(done.getVersion() == 1 + bids.size() + 1, "unexpected version " + done.getVersion());
+        for (int i = 1; i < bids.size(); i++) {
+            check(bids.get(i).getAmount() > bids.get(i - 1).getAmount(), "non-increasing bid at " + i);
+        }
+        if (!bids.isEmpty()) {
+            OnlineAuctionSystem.Bid last = bids.get(bids.size() - 1);
+            check(!last.getTime().isAfter(done.getEndsAt()), "bid accepted after the deadline");
+            check(!done.getEndsAt().isBefore(last.getTime().plusSeconds(1)), "late bid did not extend the deadline");
+        }
+
+        System.out.printf("storm: threads=%d accepted=%d rejected=%d originalEnd=%s finalEnd=%s version=%d OK%n",
+                threads, accepted.get(), rejected.get(), originalEnd, done.getEndsAt(), done.getVersion());
+    }
+
+    // ---------- BATCH SUBMISSION ----------
+    // Amortized cost per bid for a market-maker style load: every round submits `perAuction`
+    // rising bids on each of `auctions` lots, via single calls, placeBids and submitBids.
+    // The first passes only warm up the JIT; the last one is reported.
+    private static void batchVsSingle(int auctions, int perAuction) {
+        int rounds = 30, passes = 4;
+        for (int pass = 0; pass < passes; pass++)
+        for (String mode : new String[]{"single", "batch", "async"}) {
+            OnlineAuctionSystem.AuctionService service = new OnlineAuctionSystem.AuctionService();
+            OnlineAuctionSystem.User owner = service.registerUser("owner", "x");
+            OnlineAuctionSystem.User mm = service.registerUser("maker", "x");
+            long[] ids = new long[auctions];
+            for (int i = 0; i < auctions; i++) ids[i] = service.createAuction("Lot " + i, "", 1.0, 3600, owner).getId();
+
+            long accepted = 0, total = 0, elapsed = 0;
+            double price = 1.0;
+            for (int r = 0; r < rounds; r++) {
+                List<OnlineAuctionSystem.BidRequest> batch = new ArrayList<>(auctions * perAuction);
+                for (int k = 0; k < perAuction; k++) {
+                    price += 1;
+                    for (long id : ids) batch.add(new OnlineAuctionSystem.BidRequest(id, price));
+                }
+                long t0 = System.nanoTime();
+                switch (mode) {
+                    case "single" -> {
+                        for (OnlineAuctionSystem.BidRequest b : batch) if (service.placeBid(b.getAuctionId(), mm, b.getAmount())) accepted++;
+                    }
+                    case "batch" -> {
+                        for (boolean ok : service.placeBids(mm, batch)) if (ok) accepted++;
+                    }
+                    default -> {
+                        for (CompletableFuture<Boolean> f : service.submitBids(mm, batch)) if (f.join()) accepted++;
+                    }
+                }
+                elapsed += System.nanoTime() - t0;
+                total += batch.size();
+            }
+            check(accepted == total, mode + ": accepted " + accepted + " of " + total);
+            if (pass == passes - 1) System.out.printf("batch: mode=%-6s auctions=%d bids=%d  %.1f ns/bid%n", mode, auctions, total, (double) elapsed / total);
+        }
+    }
+
+    // ---------- WIRE PROTOCOL ----------
+    // Encode+decode throughput and allocation of BID frames in the binary codec against an
+    // equivalent hand-rolled JSON encoding, then a pipelined loopback run through the NIO server.
+    private static void wireCodec(int messages) throws Exception {
+        java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocateDirect(1 << 20);
+        AuctionWire.Frame frame = new AuctionWire.Frame();
+        StringBuilder sb = new StringBuilder(128);
+        for (int pass = 0; pass < 3; pass++) {
+            long allocBefore = allocatedBytes(), t0 = System.nanoTime();
+            double sum = 0;
+            for (int i = 0; i < messages; i++) {
+                if (buf.remaining() < AuctionWire.BID_LEN) {
+                    buf.flip();
+                    while (frame.next(buf)) sum += frame.bidAmount() + frame.bidAuctionId();
+                    buf.clear();
+                }
+                AuctionWire.encodeBid(buf, i, i & 1023, i & 4095, 100.0 + i);
+            }
+            buf.flip();
+            while (frame.next(buf)) sum += frame.bidAmount() + frame.bidAuctionId();
+            buf.clear();
+            report("binary", messages, System.nanoTime() - t0, allocatedBytes() - allocBefore, pass, sum);
+
+            allocBefore = allocatedBytes();
+            t0 = System.nanoTime();
+            sum = 0;
+            for (int i = 0; i < messages; i++) {
+                sb.setLength(0);
+                sb.append("{\"seq\":").append(i).append(",\"auctionId\":").append(i & 1023)
+                  .append(",\"bidderId\":").append(i & 4095).append(",\"amount\":").append(100.0 + i).append('}');
+                byte[] wire = sb.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                String json = new String(wire, java.nio.charset.StandardCharsets.UTF_8);
+                sum += Double.parseDouble(jsonField(json, "amount")) + Long.parseLong(jsonField(json, "auctionId"));
+            }
+            report("json", messages, System.nanoTime() - t0, allocatedBytes() - allocBefore, pass, sum);
+        }
+
+        OnlineAuctionSystem.AuctionService service = new OnlineAuctionSystem.AuctionService();
+        OnlineAuctionSystem.User owner = service.registerUser("owner", "x");
+        OnlineAuctionSystem.User bidder = service.registerUser("bidder", "x");
+        long id = service.createAuction("Wire Lot", "", 1.0, 3600, owner).getId();
+        int n = Math.min(messages, 200_000), window = 1000, acked = 0, accepted = 0;
+        try (AuctionWire.Server server = new AuctionWire.Server(service, 0);
+             AuctionWire.Client client = new AuctionWire.Client(server.getPort())) {
+            Thread t = new Thread(server, "wire-server");
+            t.start();
+            long t0 = System.nanoTime();
+            int sent = 0;
+            while (acked < n) {
+                while (sent < n && sent - acked < window && AuctionWire.encodeBid(client.out(), sent, id, bidder.getId(), 2.0 + sent)) sent++;
+                client.flush();
+                java.nio.ByteBuffer in = client.read();
+                while (frame.next(in)) {
+                    if (frame.type() == AuctionWire.ACK) { acked++; if (frame.ackAccepted()) accepted++; }
+                }
+                client.compactIn();
+            }
+            long ns = System.nanoTime() - t0;
+            check(accepted == n, "loopback accepted " + accepted + " of " + n);
+            System.out.printf("wire: loopback round trips=%d  %.0f bids/s%n", n, n * 1e9 / ns);
+        }
+    }
+
+    // ---------- USER DASHBOARD ----------
+    // "My listings / my bids / winning / won" for one user at `auctions` lots spread over
+    // `users` sellers and bidders: first page of each relation via the activity index,
+    // against answering the same question by scanning every auction and its bids.
+    private static void userDashboard(int auctions, int users) {
+        OnlineAuctionSystem.AuctionService service = new OnlineAuctionSystem.AuctionService();
+        Random rnd = new Random(42);
+        OnlineAuctionSystem.User[] us = new OnlineAuctionSystem.User[users];
+        for (int i = 0; i < users; i++) us[i] = service.registerUser("user" + i, "x");
+        long[] ids = new long[auctions];
+        for (int i = 0; i < auctions; i++) ids[i] = service.createAuction("Lot " + i, "", 1.0, 3600, us[rnd.nextInt(users)]).getId();
+        for (int i = 0; i < auctions * 2; i++) {
+            int k = rnd.nextInt(auctions);
+            service.placeBid(ids[k], us[rnd.nextInt(users)], service.getAuction(ids[k]).getCurrentPrice() + 1);
+        }
+        for (int i = 0; i < auctions / 10; i++) service.closeAuction(ids[rnd.nextInt(auctions)]);
+        System.out.printf("dashboard: built %d auctions, %d users, %d bids%n", auctions, users, auctions * 2);
+
+        int queries = 20_000, found = 0;
+        long t0 = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            t0 = System.nanoTime();
+            found = 0;
+            for (int q = 0; q < queries; q++) {
+                OnlineAuctionSystem.User u = us[rnd.nextInt(users)];
+                for (UserActivityIndex.Relation r : UserActivityIndex.Relation.values()) {
+                    found += service.getUserAuctions(u, r, 0, 20).size();
+                }
+            }
+        }
+        System.out.printf("dashboard: indexed  %.1f us/query (%d rows over %d queries)%n",
+                (System.nanoTime() - t0) / 1e3 / queries, found, queries);
+
+        int scans = 3;
+        t0 = System.nanoTime();
+        found = 0;
+        for (int q = 0; q < scans; q++) {
+            OnlineAuctionSystem.User u = us[rnd.nextInt(users)];
+            for (long id : ids) {
+                OnlineAuctionSystem.Auction a = service.getAuction(id);
+                boolean mine = a.getOwner().equals(u) || u.equals(a.getHighestBidder());
+                for (OnlineAuctionSystem.Bid b : a.getBids()) mine |= b.getBidder().equals(u);
+                if (mine) found++;
+            }
+        }
+        System.out.printf("dashboard: scan     %.1f us/query (%d rows over %d queries)%n",
+                (System.nanoTime() - t0) / 1e3 / scans, found, scans);
+    }
+
+    // ---------- OUTBID NOTIFICATIONS ----------
+    // Two users trade bids on a few lots as fast as possible, with and without a sink
+    // attached. Every outbid must end up in a coalesced notice or in the drop counter,
+    // and the sink must see far fewer notices than outbids.
+    private static void biddingWar(int bids) throws Exception {
+        for (boolean withSink : new boolean[]{false, true, false, true}) {
+            OnlineAuctionSystem.AuctionService service = new OnlineAuctionSystem.AuctionService();
+            OutbidNotifier.QueueSink sink = new OutbidNotifier.QueueSink();
+            if (withSink) service.getNotifier().addSink(sink);
+            OnlineAuctionSystem.User owner = service.registerUser("owner", "x");
+            OnlineAuctionSystem.User[] rivals = {service.registerUser("red", "x"), service.registerUser("blue", "x")};
+            long[] ids = new long[4];
+            for (int i = 0; i < ids.length; i++) ids[i] = service.createAuction("War " + i, "", 1.0, 3600, owner).getId();
+            long t0 = System.nanoTime();
+            for (int i = 0; i < bids; i++) service.placeBid(ids[i % ids.length], rivals[(i / ids.length) & 1], 2.0 + i);
+            long ns = System.nanoTime() - t0;
+
+            OutbidNotifier n = service.getNotifier();
+            if (withSink) {
+                long outbids = bids - ids.length;
+                while (n.getDelivered() + n.getCoalesced() + n.getDropped() < outbids) Thread.sleep(50);
+                check(n.getAccepted() + n.getDropped() == outbids, "lost outbid events: " + n.metrics());
+                int notices = 0;
+                for (OutbidNotifier.Notice x : sink.getNotices()) notices += x.getTimes();
+                check(notices == n.getAccepted(), "notices cover " + notices + " of " + n.getAccepted() + " accepted events");
+            }
+            System.out.printf("outbid: sink=%-5s %.0f ns/placeBid  %s%n", withSink, (double) ns / bids, n.metrics());
+        }
+    }
+
+    // ---------- BID ANALYTICS ----------
+    // Round-trips a few real closed auctions through the archive and checks the aggregates,
+    // then writes `bids` synthetic bids to a fresh archive and times full-scan queries.
+    private static void analyticsScan(int bids) throws Exception {
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("bid-archive");
+        try {
+            OnlineAuctionSystem.AuctionService service = new OnlineAuctionSystem.AuctionService();
+            OnlineAuctionSystem.User owner = service.registerUser("owner", "x");
+            OnlineAuctionSystem.User bidder = service.registerUser("bidder", "x");
+            double expected = 0;
+            int sold = 0;
+            for (int i = 0; i < 5000; i++) {
+                long id = service.createAuction("Lot " + i, "", i % 2 == 0 ? "Art" : "Coins", 10.0, 3600, owner).getId();
+                for (int k = 1; k <= i % 7; k++) service.placeBid(id, bidder, 10.0 + k * 1.25);
+                service.closeAuction(id);
+                // lots without bids went unsold and stay out of the final prices
+                if (i % 2 == 0 && i % 7 != 0) {
+                    expected += service.getAuction(id).getCurrentPrice();
+                    sold++;
+                }
+            }
+            BidAnalytics archive = new BidAnalytics(dir.resolve("live"));
+            archive.archive(service.drainClosed());
+            Map<BidAnalytics.Group, BidAnalytics.Stats> finals = archive.finalPrices();
+            BidAnalytics.Stats art = finals.get(new BidAnalytics.Group("Art", 0));
+            check(art.getCount() == sold && Math.abs(art.getSum() - expected) < 1e-6, "final prices mismatch: " + art);
+            long archived = 0;
+            for (BidAnalytics.Stats st : archive.priceCurve(4).values()) archived += st.getCount();
+            check(archived == archive.getBidCount(), "price curve saw " + archived + " of " + archive.getBidCount() + " bids");
+
+            String[] categories = {"Collectible", "Electronics", "Luxury", "Antique", "Gadget", "Vehicle", "Accessory", "Artwork"};
+            Random rnd = new Random(7);
+            long base = java.time.Instant.parse("2026-01-01T00:00:00Z").toEpochMilli();
+            long t0 = System.nanoTime();
+            BidAnalytics bulk = new BidAnalytics(dir.resolve("bulk"));
+            long[] times = new long[256], cents = new long[256];
+            long written = 0, id = 0;
+            try (BidAnalytics.Writer w = bulk.writer()) {
+                while (written < bids) {
+                    int n = (int) Math.min(bids - written, rnd.nextInt(256));
+                    long created = base + (id * 37_000L) % (30L * 86_400_000L);
+                    long start = 1000 + rnd.nextInt(100_000), price = start, t = created;
+                    for (int i = 0; i < n; i++) {
+                        t += 1 + rnd.nextInt(20_000);
+                        price += 100 + rnd.nextInt(5_000);
+                        times[i] = t;
+                        cents[i] = price;
+                    }
+                    w.auction(++id, categories[(int) (id % categories.length)], created, created + 86_400_000L, start, price, times, cents, n);
+                    written += n;
+                }
+            }
+            long bytes = 0;
+            try (java.nio.file.DirectoryStream<java.nio.file.Path> ds = java.nio.file.Files.newDirectoryStream(dir.resolve("bulk"))) {
+                for (java.nio.file.Path p : ds) bytes += java.nio.file.Files.size(p);
+            }
+            System.out.printf("analytics: wrote %d bids / %d auctions in %d segments, %.2f bytes/bid, %.1fs%n",
+                    written, id, bulk.getSegmentCount(), (double) bytes / written, (System.nanoTime() - t0) / 1e9);
+
+            BidAnalytics reopened = new BidAnalytics(dir.resolve("bulk"));
+            for (int pass = 0; pass < 2; pass++) {
+                t0 = System.nanoTime();
+                Map<BidAnalytics.Group, BidAnalytics.Stats> velocity = reopened.bidsByTime(java.time.Duration.ofDays(1));
+                long scanned = 0;
+                for (BidAnalytics.Stats st : velocity.values()) scanned += st.getCount();
+                double secs = (System.nanoTime() - t0) / 1e9;
+                check(scanned == written, "scanned " + scanned + " of " + written);
+                if (pass == 1) System.out.printf("analytics: bidsByTime(1d) %d groups, %.2fs, %.0f M bids/s%n", velocity.size(), secs, scanned / secs / 1e6);
+            }
+            // fine buckets: many groups per block, so merging must not copy the running result
+            t0 = System.nanoTime();
+            Map<BidAnalytics.Group, BidAnalytics.Stats> perMinute = reopened.bidsByTime(java.time.Duration.ofMinutes(1));
+            System.out.printf("analytics: bidsByTime(1m) %d groups, %.2fs%n", perMinute.size(), (System.nanoTime() - t0) / 1e9);
+            t0 = System.nanoTime();
+            Map<BidAnalytics.Group, BidAnalytics.Stats> curve = reopened.priceCurve(10);
+            System.out.printf("analytics: priceCurve(10) %d groups, %.2fs%n", curve.size(), (System.nanoTime() - t0) / 1e9);
+            t0 = System.nanoTime();
+            Map<BidAnalytics.Group, BidAnalytics.Stats> byCategory = reopened.finalPrices();
+            System.out.printf("analytics: finalPrices %.3fs  e.g. %s%n", (System.nanoTime() - t0) / 1e9,
+                    new TreeMap<>(byCategory).firstEntry());
+        } finally {
+            try (java.util.stream.Stream<java.nio.file.Path> walk = java.nio.file.Files.walk(dir)) {
+                walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    // ---------- TIERED STORAGE ----------
+    // Closes `auctions` auctions with `perAuction` bids each on a virtual clock, lets the
+    // retention pass so they are demoted to disk, checks a sample pages back in identical,
+    // then reads with a skewed (mostly recent) access pattern and reports the tiers.
+    private static void tieredStorage(int auctions, int perAuction) throws Exception {
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("cold-tier");
+        AuctionSimulator.VirtualClock clock = new AuctionSimulator.VirtualClock(Instant.parse("2026-01-01T00:00:00Z"));
+        OnlineAuctionSystem.AuctionService service = new OnlineAuctionSystem.AuctionService(clock, new Random(1));
+        service.enableColdTier(dir, java.time.Duration.ofHours(1), 200_000);
+        try {
+            OnlineAuctionSystem.User owner = service.registerUser("owner", "x");
+            OnlineAuctionSystem.User[] bidders = new OnlineAuctionSystem.User[100];
+            for (int i = 0; i < bidders.length; i++) bidders[i] = service.registerUser("bidder" + i, "x");
+            long[] ids = new long[auctions];
+            Map<Long, String> sample = new HashMap<>();
+            for (int i = 0; i < auctions; i++) {
+                long id = service.createAuction("Lot " + i, "tiering test", "Art", 10.0, 3600, owner).getId();
+                for (int k = 1; k <= perAuction; k++) service.placeBid(id, bidders[(i + k) % bidders.length], 10.0 + k);
+                service.closeAuction(id);
+                ids[i] = id;
+                if (i % 1000 == 0) sample.put(id, service.getAuction(id).fullString());
+            }
+            long before = usedHeap();
+            clock.advanceTo(clock.instant().plus(java.time.Duration.ofHours(2)));
+            long t0 = System.nanoTime();
+            service.expireAuctions();
+            double demoteSecs = (System.nanoTime() - t0) / 1e9;
+            long after = usedHeap();
+            AuctionColdStore cold = service.getColdStore();
+            check(cold.size() == auctions, "demoted " + cold.size() + " of " + auctions);
+            for (Map.Entry<Long, String> e : sample.entrySet()) {
+                check(e.getValue().equals(service.getAuction(e.getKey()).fullString()), "auction " + e.getKey() + " changed in the cold tier");
+            }
+            System.out.printf("tiered: demoted %d auctions (%d bids) in %.2fs, %.1f MB on disk, heap %.1f -> %.1f MB%n",
+                    auctions, (long) auctions * perAuction, demoteSecs, cold.getBytes() / 1e6, before / 1e6, after / 1e6);
+
+            Random rnd = new Random(3);
+            int reads = 1_000_000;
+            t0 = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                // 90% of reads go to the newest 5% of auctions
+                int k = rnd.nextInt(10) < 9 ? auctions - 1 - rnd.nextInt(Math.max(1, auctions / 20)) : rnd.nextInt(auctions);
+                check(service.getAuction(ids[k]).getBidCount() == perAuction, "bad bid count for " + ids[k]);
+            }
+            System.out.printf("tiered: %d cold reads, %.2f us/read%n", reads, (System.nanoTime() - t0) / 1e3 / reads);
+            System.out.println("tiered: " + cold.metrics());
+        } finally {
+            service.getColdStore().close();
+            try (java.util.stream.Stream<java.nio.file.Path> walk = java.nio.file.Files.walk(dir)) {
+                walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    // ---------- BULK LISTINGS ----------
+    // Pushes `listings` raw listings (about 5% duplicates, 2% invalid) through the creation
+    // pipeline, checks every outcome and that accepted auctions are visible in the seller's
+    // index, and compares with calling createAuction directly.
+    private static void bulkListings(int listings, int threadsPerStage) throws Exception {
+        OnlineAuctionSystem.AuctionService direct = new OnlineAuctionSystem.AuctionService();
+        OnlineAuctionSystem.User seller = direct.registerUser("seller", "x");
+        long t0 = System.nanoTime();
+        for (int i = 0; i < listings; i++) direct.createAuction("Lot " + i, "bulk upload", "Art", 10.0, 3600, seller);
+        double directSecs = (System.nanoTime() - t0) / 1e9;
+
+        OnlineAuctionSystem.AuctionService service = new OnlineAuctionSystem.AuctionService();
+        List<OnlineAuctionSystem.User> sellers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) sellers.add(service.registerUser("seller" + i, "x"));
+        Random rnd = new Random(5);
+        int expectInvalid = 0, expectDup = 0;
+        List<CompletableFuture<OnlineAuctionSystem.Auction>> results = new ArrayList<>(listings);
+        try (ListingPipeline pipeline = new ListingPipeline(service, threadsPerStage, threadsPerStage, threadsPerStage, 1024)) {
+            t0 = System.nanoTime();
+            for (int i = 0; i < listings; i++) {
+                int roll = rnd.nextInt(100);
+                String title = "Lot " + (roll < 5 && i > 0 ? i - 1 : i);
+                String price = roll == 99 || roll == 98 ? "ten" : String.valueOf(10 + rnd.nextInt(100));
+                if (roll >= 98) expectInvalid++;
+                else if (roll < 5 && i > 0) expectDup++;
+                // duplicates reuse the previous title with the previous seller
+                OnlineAuctionSystem.User owner = sellers.get((roll < 5 && i > 0 ? i - 1 : i) % sellers.size());
+                results.add(pipeline.submit(new ListingPipeline.Listing(owner, title, "bulk upload", "Art", price, "3600")));
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).exceptionally(ex -> null).join();
+            double secs = (System.nanoTime() - t0) / 1e9;
+            // a duplicate of an invalid listing is itself accepted, so compare with a tolerance
+            check(pipeline.getInvalid() == expectInvalid, "invalid " + pipeline.getInvalid() + " expected " + expectInvalid);
+            check(Math.abs(pipeline.getDuplicates() - expectDup) <= expectInvalid, "duplicates " + pipeline.getDuplicates() + " expected ~" + expectDup);
+            check(pipeline.getAccepted() + pipeline.getInvalid() + pipeline.getDuplicates() == listings, "lost listings");
+            long visible = 0;
+            for (OnlineAuctionSystem.User u : sellers) {
+                long cursor = 0;
+                List<OnlineAuctionSystem.Auction> page;
+                while (!(page = service.getUserAuctions(u, UserActivityIndex.Relation.OWNED, cursor, 1000)).isEmpty()) {
+                    visible += page.size();
+                    cursor = page.get(page.size() - 1).getId();
+                }
+            }
+            check(visible == pipeline.getAccepted(), "visible " + visible + " of " + pipeline.getAccepted());
+            System.out.printf("listings: direct createAuction %.0f/s, pipeline (%d threads/stage) %.0f/s end to end%n",
+                    listings / directSecs, threadsPerStage, listings / secs);
+            System.out.println("listings: " + pipeline.metrics());
+        }
+    }
+
+    // ---------- SEALED AND DUTCH ----------
+    // Places `bids` sealed bids (one per bidder) on a single first-price lot and a single
+    // Vickrey lot, times the close-time resolution and checks winner and price against a
+    // running max. Then `takers` threads race to take one Dutch lot; exactly one may win.
+    private static void sealedAndDutch(int bids, int takers) throws Exception {
+        OnlineAuctionSystem.AuctionService service = new OnlineAuctionSystem.AuctionService();
+        OnlineAuctionSystem.User owner = service.registerUser("owner", "x");
+        OnlineAuctionSystem.User[] bidders = new OnlineAuctionSystem.User[bids];
+        for (int i = 0; i < bids; i++) bidders[i] = service.registerUser("sealed" + i, "x");
+        for (OnlineAuctionSystem.AuctionType type : new OnlineAuctionSystem.AuctionType[]{
+                OnlineAuctionSystem.AuctionType.SEALED_FIRST_PRICE, OnlineAuctionSystem.AuctionType.VICKREY}) {
+            // warm the close path on small lots so the timing below is the resolution itself
+            for (int w = 0; w < 20_000; w++) {
+                long lot = service.createAuction("Warm-up", "", "Art", 1.0, 3600, owner, type).getId();
+                for (int k = 0; k < 3; k++) service.placeBid(lot, bidders[k], 2.0 + k);
+                service.closeAuction(lot);
+            }
+            long id = service.createAuction("Sealed lot", "", "Art", 100.0, 3600, owner, type).getId();
+            Random rnd = new Random(11);
+            double best = 0, second = 0;
+            OnlineAuctionSystem.User winner = null;
+            long t0 = System.nanoTime();
+            for (OnlineAuctionSystem.User u : bidders) {
+                // whole cents so ties are possible and exercise the earliest-wins rule
+                double amount = 100 + rnd.nextInt(10_000_000) / 100.0;
+                check(service.placeBid(id, u, amount), "sealed bid rejected");
+                if (amount > best) { second = best; best = amount; winner = u; }
+                else if (amount > second) second = amount;
+            }
+            double placeNs = (double) (System.nanoTime() - t0) / bids;
+            check(!service.placeBid(id, bidders[0], 1e9), "second sealed bid from one bidder accepted");
+            check(service.getAuction(id).getCurrentPrice() == 100.0, "sealed bids leaked into the snapshot");
+            t0 = System.nanoTime();
+            check(service.closeAuction(id), "close failed");
+            long resolveNs = System.nanoTime() - t0;
+            OnlineAuctionSystem.Auction done = service.getAuction(id);
+            double expected = type == OnlineAuctionSystem.AuctionType.VICKREY ? second : best;
+            check(done.getHighestBidder() == winner && done.getCurrentPrice() == expected,
+                    type + " resolved to " + done.getLastBid() + ", expected " + winner.getUsername() + " at " + expected);
+            System.out.printf("sealed: %-18s %d bids, %.0f ns/bid, resolve at close %.1f us, winner %s pays %.2f%n",
+                    type, bids, placeNs, resolveNs / 1e3, winner.getUsername(), done.getCurrentPrice());
+        }
+
+        long dutch = service.createDutchAuction("Dutch lot", "", "Art", 1000.0, 100.0, 1, 60, owner).getId();
+        check(service.getAuction(dutch).getCurrentPrice() == 1000.0, "Dutch lot should open at its starting price");
+        AtomicInteger wins = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(takers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < takers; i++) {
+            OnlineAuctionSystem.User taker = bidders[i];
+            futures.add(pool.submit(() -> {
+                go.await();
+                OnlineAuctionSystem.Auction cur;
+                while (!(cur = service.getAuction(dutch)).isClosed()) {
+                    if (service.placeBid(dutch, taker, cur.getCurrentPrice())) wins.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+        OnlineAuctionSystem.Auction taken = service.getAuction(dutch);
+        check(wins.get() == 1 && taken.getBidCount() == 1, "Dutch lot taken " + wins.get() + " times");
+        System.out.printf("sealed: DUTCH %d takers, one winner %s at %.2f%n", takers, taken.getHighestBidder().getUsername(), taken.getCurrentPrice());
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static String jsonField(String json, String name) {
+        int at = json.indexOf("\"" + name + "\":") + name.length() + 3;
+        int end = at;
+        while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') end++;
+        return json.substring(at, end);
+    }
+
+    private static void report(String codec, int messages, long ns, long bytes, int pass, double sink) {
+        if (pass < 2) return;
+        System.out.printf("wire: codec=%-6s msgs=%d  %.2f M msgs/s  %.1f bytes allocated/msg  (checksum %.0f)%n",
+                codec, messages, messages * 1e3 / ns, (double) bytes / messages, sink);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void check(boolean ok, String msg) {
+        if (!ok) throw new IllegalStateException(msg);
+    }
+}
@@ -0,0 +1,206 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+// Disk tier for closed auctions that have left the service's on-heap map.
+//
+// Each demoted snapshot is appended as one length-prefixed record to a single data
+// file. Only the id -> file offset index stays on heap. Reads first check a
+// size-bounded LRU of recently paged-in auctions, weighted by bid count so a few
+// huge histories cannot crowd out everything else. On a miss they do a positional
+// read of the record and rebuild the full Auction, bid history included. Users are
+// stored by id and resolved through the service, so the file is only meaningful to
+// the service instance that wrote it and is truncated on open.
+public class AuctionColdStore implements Closeable {
+
+    private final FileChannel file;
+    private final Map<Long, Long> offsets = new ConcurrentHashMap<>();
+    private final LongFunction<OnlineAuctionSystem.User> users;
+    private final Clock clock;
+    private final long cacheWeight;
+    private final LinkedHashMap<Long, OnlineAuctionSystem.Auction> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedWeight;
+    private long end;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong diskReads = new AtomicLong();
+    private final AtomicLong demoted = new AtomicLong();
+    private final LatencyHistogram cacheLatency = new LatencyHistogram();
+    private final LatencyHistogram diskLatency = new LatencyHistogram();
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+    // cacheWeight bounds the paged-in auctions by total bids (each auction counts at least 1)
+    public AuctionColdStore(Path dir, long cacheWeight, LongFunction<OnlineAuctionSystem.User> users, Clock clock) throws IOException {
+        Files.createDirectories(dir);
+        this.file = FileChannel.open(dir.resolve("cold-auctions.dat"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.cacheWeight = cacheWeight;
+        this.users = users;
+        this.clock = clock;
+    }
+
+    public boolean contains(long id) { return offsets.containsKey(id); }
+    public int size() { return offsets.size(); }
+    public long getBytes() { return end; }
+    public long getCacheHits() { return cacheHits.get(); }
+    public long getDiskReads() { return diskReads.get(); }
+
+    // Append a closed snapshot; it must not change afterwards
+    public void put(OnlineAuctionSystem.Auction a) {
+        long t0 = System.nanoTime();
+        ByteBuffer buf = ByteBuffer.wrap(encode(a));
+        try {
+            long at;
+            synchronized (file) {
+                at = end;
+                for (long pos = at; buf.hasRemaining(); ) pos += file.write(buf, pos);
+                end = at + buf.capacity();
+            }
+            offsets.put(a.getId(), at);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cold tier write failed for auction " + a.getId(), ex);
+        }
+        demoted.incrementAndGet();
+        record(writeLatency, System.nanoTime() - t0);
+    }
+
+    // The archived auction, or null if it was never demoted
+    public OnlineAuctionSystem.Auction get(long id) {
+        long t0 = System.nanoTime();
+        OnlineAuctionSystem.Auction a;
+        synchronized (cache) { a = cache.get(id); }
+        if (a != null) {
+            cacheHits.incrementAndGet();
+            record(cacheLatency, System.nanoTime() - t0);
+            return a;
+        }
+        Long at = offsets.get(id);
+        if (at == null) return null;
+        try {
+            ByteBuffer len = ByteBuffer.allocate(4);
+            readFully(len, at);
+            ByteBuffer body = ByteBuffer.allocate(len.getInt(0));
+            readFully(body, at + 4);
+            a = decode(body.array());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cold tier read failed for auction " + id, ex);
+        }
+        diskReads.incrementAndGet();
+        cache(a);
+        record(diskLatency, System.nanoTime() - t0);
+        return a;
+    }
+
+    private void readFully(ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = file.read(buf, pos);
+            if (n < 0) throw new EOFException("Truncated cold record at " + pos);
+            pos += n;
+        }
+    }
+
+    private void cache(OnlineAuctionSystem.Auction a) {
+        synchronized (cache) {
+            if (cache.put(a.getId(), a) == null) cachedWeight += weight(a);
+            Iterator<OnlineAuctionSystem.Auction> lru = cache.values().iterator();
+            while (cachedWeight > cacheWeight && lru.hasNext()) {
+                cachedWeight -= weight(lru.next());
+                lru.remove();
+            }
+        }
+    }
+
+    private static long weight(OnlineAuctionSystem.Auction a) { return Math.max(1, a.getBidCount()); }
+
+    private static void record(LatencyHistogram h, long nanos) {
+        synchronized (h) { h.record(nanos); }
+    }
+
+    // "demoted=.. bytes=.. hitRate=.. cache[..] disk[..] write[..]"
+    public String metrics() {
+        long hits = cacheHits.get(), reads = diskReads.get();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("demoted=%d bytes=%d cacheHits=%d diskReads=%d hitRate=%.1f%%",
+                demoted.get(), end, hits, reads, hits + reads == 0 ? 0 : hits * 100.0 / (hits + reads)));
+        synchronized (cacheLatency) { sb.append("\n  cache ").append(cacheLatency.summary()); }
+        synchronized (diskLatency) { sb.append("\n  disk  ").append(diskLatency.summary()); }
+        synchronized (writeLatency) { sb.append("\n  write ").append(writeLatency.summary()); }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() throws IOException { file.close(); }
+
+    // ---------- RECORD FORMAT ----------
+    // int length, then id, version, title, description, category, type, starting price, floor
+    // price, drop interval, owner id, created/ends instants, bid count and per bid: bidder id,
+    // amount, time
+    private static byte[] encode(OnlineAuctionSystem.Auction a) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + a.getBidCount() * 28);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeLong(a.getId());
+            out.writeLong(a.getVersion());
+            out.writeUTF(a.getTitle());
+            out.writeUTF(a.getDescription());
+            out.writeUTF(a.getCategory());
+            out.writeByte(a.getType().ordinal());
+            out.writeDouble(a.getStartingPrice());
+            out.writeDouble(a.getFloorPrice());
+            out.writeLong(a.getDropIntervalSec());
+            out.writeLong(a.getOwner().getId());
+            writeInstant(out, a.getCreatedAt());
+            writeInstant(out, a.getEndsAt());
+            List<OnlineAuctionSystem.Bid> bids = a.getBids();
+            out.writeInt(bids.size());
+            for (OnlineAuctionSystem.Bid b : bids) {
+                out.writeLong(b.getBidder().getId());
+                out.writeDouble(b.getAmount());
+                writeInstant(out, b.getTime());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        byte[] rec = bytes.toByteArray();
+        ByteBuffer.wrap(rec).putInt(0, rec.length - 4);
+        return rec;
+    }
+
+    private OnlineAuctionSystem.Auction decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        long id = in.readLong(), version = in.readLong();
+        String title = in.readUTF(), desc = in.readUTF(), category = in.readUTF();
+        OnlineAuctionSystem.AuctionType type = OnlineAuctionSystem.AuctionType.values()[in.readByte()];
+        double start = in.readDouble(), floor = in.readDouble();
+        long dropInterval = in.readLong();
+        OnlineAuctionSystem.User owner = users.apply(in.readLong());
+        Instant created = readInstant(in), ends = readInstant(in);
+        int n = in.readInt();
+        List<OnlineAuctionSystem.Bid> bids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            OnlineAuctionSystem.User bidder = users.apply(in.readLong());
+            double amount = in.readDouble();
+            bids.add(new OnlineAuctionSystem.Bid(bidder, amount, readInstant(in)));
+        }
+        return new OnlineAuctionSystem.Auction(id, version, title, desc, category, start, owner, created, ends, bids, clock,
+                type, floor, dropInterval);
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant t) throws IOException {
+        out.writeLong(t.getEpochSecond());
+        out.writeInt(t.getNano());
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+    }
+}
@@ -13,6 +13,8 @@ import java.util.Properties;
 
 public class AuctionDashboard {
     private final OnlineAuctionSystem.AuctionService service = new OnlineAuctionSystem.AuctionService();
+    // creation runs off the EDT; the dialog is notified when the listing is published
+    private final ListingPipeline listings = new ListingPipeline(service, 1, 1, 1, 256);
     private OnlineAuctionSystem.User currentUser = null;
 
     private final JFrame frame = new JFrame("Auction Dashboard");
@@ -24,7 +26,34 @@ public class AuctionDashboard {
     private final DefaultTableModel tableModel = new DefaultTableModel(new String[]{"ID","Title","Owner","Current","Ends","Status"}, 0) {
         @Override public boolean isCellEditable(int row, int col) { return false; }
     };
-    private final JTable auctionTable = new JTable(tableModel);
+    // paint time of every table repaint feeds the frame-cost overlay
+    private final JTable auctionTable = new JTable(tableModel) {
+        @Override protected void paintComponent(Graphics g) {
+            long t0 = System.nanoTime();
+            super.paintComponent(g);
+            paintCost.record(System.nanoTime() - t0);
+        }
+    };
+    // Snapshot shown in each model row, so unchanged rows are never rewritten or repainted
+    private OnlineAuctionSystem.Auction[] rowSnapshots = new OnlineAuctionSystem.Auction[0];
+    private boolean[] rowClosed = new boolean[0];
+    private boolean[] rowDirty = new boolean[0];
+    // Frame-cost overlay state (EDT only)
+    private LatencyHistogram paintCost = new LatencyHistogram();
+    private int rowsUpdated;
+    private String overlayText = "collecting...";
+    private final JComponent overlay = new JComponent() {
+        @Override protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            FontMetrics fm = g2.getFontMetrics();
+            int w = fm.stringWidth(overlayText) + 16, h = fm.getHeight() + 10;
+            int x = getWidth() - w - 12, y = 64;
+            g2.setColor(new Color(0, 0, 0, 160));
+            g2.fillRoundRect(x, y, w, h, 8, 8);
+            g2.setColor(Color.white);
+            g2.drawString(overlayText, x + 8, y + 5 + fm.getAscent());
+        }
+    };
     private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss");
     // Announcement log model and table (right-side pane)
     private final DefaultTableModel logModel = new DefaultTableModel(new String[]{"Time","Announcement"}, 0) {
@@ -42,6 +71,12 @@ public class AuctionDashboard {
     public AuctionDashboard() {
         seedDemoData();
         initUI();
+        // outbid notices for the logged-in user go to the announcement log
+        service.getNotifier().addSink(batch -> SwingUtilities.invokeLater(() -> {
+            for (OutbidNotifier.Notice n : batch) {
+                if (n.getUser().equals(currentUser)) appendAnnouncementLog(String.format("You were outbid on '%s' (now %.2f)", n.getTitle(), n.getPrice()));
+            }
+        }));
         // Show a dedicated login window (separate screen) before revealing the dashboard
         while (currentUser == null) {
             LoginWindow lw = new LoginWindow(frame);
@@ -55,6 +90,9 @@ public class AuctionDashboard {
 
         refreshTable();
         frame.setVisible(true);
+        // live updates: re-read only the visible rows and repaint just those that changed
+        new javax.swing.Timer(1000, e -> refreshVisibleRows()).start();
+        new javax.swing.Timer(500, e -> updateOverlay()).start();
     }
 
     private void initUI() {
@@ -72,14 +110,7 @@ public class AuctionDashboard {
         title.setFont(new Font("SansSerif", Font.BOLD, 20));
         title.setForeground(Color.white);
         // small accent dot to the left
-        title.setIcon(new Icon() {
-            public int getIconWidth(){ return 12; }
-            public int getIconHeight(){ return 12; }
-            public void paintIcon(Component c, Graphics g, int x, int y){
-                g.setColor(THEME_ACCENT);
-                g.fillOval(x, y, 12, 12);
-            }
-        });
+        title.setIcon(RenderCache.dot(THEME_ACCENT, 12));
         title.setIconTextGap(10);
         top.add(title, BorderLayout.WEST);
 
@@ -144,6 +175,10 @@ public class AuctionDashboard {
         JButton close = new JButton("Close Auction");
         JTextField search = new JTextField(18);
         search.setToolTipText("Search title...");
+        JCheckBox frameCost = new JCheckBox("Frame cost");
+        frameCost.setOpaque(false);
+        frame.setGlassPane(overlay);
+        frameCost.addActionListener(e -> overlay.setVisible(frameCost.isSelected()));
 
         // Style controls
         styleButton(refresh, new Color(66,133,244), Color.white);
@@ -160,6 +195,7 @@ public class AuctionDashboard {
         controls.add(bid);
         controls.add(create);
         controls.add(close);
+        controls.add(frameCost);
 
         // Pagination controls
         prevBtn = new JButton("◀ Prev");
@@ -265,7 +301,7 @@ public class AuctionDashboard {
         admin.setAdmin(true);
 
         // Generate up to 150 demo auctions with mostly-unique owners
-        java.util.Random rnd = new java.util.Random();
+        java.util.Random rnd = service.getRandom();
         String[] categories = new String[]{"Collectible","Electronics","Luxury","Antique","Gadget","Vehicle","Accessory","Artwork","Jewelry","Instrument"};
         int total = 150;
 
@@ -301,7 +337,7 @@ public class AuctionDashboard {
             String display = firstNames[(i-1) % firstNames.length] + " " + lastNames[( (i-1) / firstNames.length) % lastNames.length];
             owner.setDisplayName(display);
             long duration = 3600 + rnd.nextInt(7) * 3600L; // random few hours
-            service.createAuction(title, desc, price, duration, owner);
+            service.createAuction(title, desc, cat, price, duration, owner);
         }
 
         // Add a few initial bids from random users so winners appear sometimes
@@ -322,28 +358,83 @@ public class AuctionDashboard {
     }
 
     private void displayPage() {
-        tableModel.setRowCount(0);
         int total = currentList.size();
         int totalPages = Math.max(1, (total + pageSize - 1) / pageSize);
         if (currentPage > totalPages) currentPage = totalPages;
         int start = (currentPage - 1) * pageSize;
         int end = Math.min(start + pageSize, total);
-        for (int i = start; i < end; i++) {
-            OnlineAuctionSystem.Auction a = currentList.get(i);
-            String ends = a.getEndsAt().toString();
-            String status = a.isClosed() ? "CLOSED" : "OPEN";
-            String owner = "(unknown)";
-            if (a.getOwner() != null) {
-                String dn = a.getOwner().getDisplayName();
-                owner = (dn != null && !dn.trim().isEmpty()) ? dn : capitalize(a.getOwner().getUsername());
-            }
-            tableModel.addRow(new Object[]{a.getId(), a.getTitle(), owner, String.format("%.2f", a.getCurrentPrice()), ends, status});
+        int n = end - start;
+        if (tableModel.getRowCount() != n) {
+            tableModel.setRowCount(n);
+            rowSnapshots = java.util.Arrays.copyOf(rowSnapshots, n);
+            rowClosed = java.util.Arrays.copyOf(rowClosed, n);
+            rowDirty = new boolean[n];
         }
+        for (int i = 0; i < n; i++) setRow(i, currentList.get(start + i));
+        fireDirtyRows();
         pageLabel.setText(String.format("%d / %d (%d)", currentPage, totalPages, total));
         prevBtn.setEnabled(currentPage > 1);
         nextBtn.setEnabled(currentPage < totalPages);
     }
 
+    // Write a snapshot into model row i without firing events; rows already showing this
+    // snapshot and status are left alone
+    @SuppressWarnings("unchecked")
+    private void setRow(int i, OnlineAuctionSystem.Auction a) {
+        boolean closed = a.isClosed();
+        if (rowSnapshots[i] == a && rowClosed[i] == closed) return;
+        String owner = "(unknown)";
+        if (a.getOwner() != null) {
+            String dn = a.getOwner().getDisplayName();
+            owner = (dn != null && !dn.trim().isEmpty()) ? dn : capitalize(a.getOwner().getUsername());
+        }
+        java.util.Vector<Object> row = (java.util.Vector<Object>) tableModel.getDataVector().get(i);
+        row.set(0, a.getId());
+        row.set(1, a.getTitle());
+        row.set(2, owner);
+        row.set(3, String.format("%.2f", a.getCurrentPrice()));
+        row.set(4, a.getEndsAt().toString());
+        row.set(5, closed ? "CLOSED" : "OPEN");
+        rowSnapshots[i] = a;
+        rowClosed[i] = closed;
+        rowDirty[i] = true;
+    }
+
+    // One rowsUpdated event per run of changed rows, so the table repaints only those rects
+    private void fireDirtyRows() {
+        for (int i = 0; i < rowDirty.length; i++) {
+            if (!rowDirty[i]) continue;
+            int first = i;
+            while (i < rowDirty.length && rowDirty[i]) rowDirty[i++] = false;
+            tableModel.fireTableRowsUpdated(first, i - 1);
+            rowsUpdated += i - first;
+        }
+    }
+
+    // Pull newer versions of the visible auctions only (conditional reads by version)
+    private void refreshVisibleRows() {
+        int start = (currentPage - 1) * pageSize;
+        for (int i = 0; i < rowSnapshots.length; i++) {
+            OnlineAuctionSystem.Auction shown = rowSnapshots[i];
+            if (shown == null) continue;
+            OnlineAuctionSystem.Auction a = service.getAuctionIfChanged(shown.getId(), shown.getVersion());
+            if (a == null) a = shown;
+            else if (start + i < currentList.size()) currentList.set(start + i, a);
+            setRow(i, a);
+        }
+        fireDirtyRows();
+    }
+
+    private void updateOverlay() {
+        if (!overlay.isVisible()) return;
+        LatencyHistogram h = paintCost;
+        paintCost = new LatencyHistogram();
+        overlayText = String.format("table paint: %d frames  p50 %.2f ms  p99 %.2f ms  max %.2f ms  |  rows updated %d",
+                h.getCount(), h.percentileNanos(50) / 1e6, h.percentileNanos(99) / 1e6, h.getMaxNanos() / 1e6, rowsUpdated);
+        rowsUpdated = 0;
+        overlay.repaint();
+    }
+
     private void filterTable(String q) {
         if (q.isEmpty()) { refreshTable(); return; }
         java.util.List<OnlineAuctionSystem.Auction> list = service.listActiveAuctions();
@@ -361,7 +452,7 @@ public class AuctionDashboard {
         int sel = auctionTable.getSelectedRow();
         if (sel < 0) { JOptionPane.showMessageDialog(frame, "Select an auction first."); return; }
         long id = Long.parseLong(tableModel.getValueAt(sel,0).toString());
-        OnlineAuctionSystem.Auction a = service.getAuction(id);
+        OnlineAuctionSystem.Auction a = service.viewAuction(id);
         if (a==null) { JOptionPane.showMessageDialog(frame, "Auction not found."); return; }
         JTextArea ta = new JTextArea(a.fullString());
         ta.setEditable(false);
@@ -395,13 +486,16 @@ public class AuctionDashboard {
         Object[] msg = {"Title:", title, "Description:", desc, "Starting price:", start, "Duration (seconds):", dur};
         int res = JOptionPane.showConfirmDialog(frame, msg, "Create Auction", JOptionPane.OK_CANCEL_OPTION);
         if (res != JOptionPane.OK_OPTION) return;
-        try {
-            double s = Double.parseDouble(start.getText().trim());
-            long d = Long.parseLong(dur.getText().trim());
-            OnlineAuctionSystem.Auction a = service.createAuction(title.getText().trim(), desc.getText().trim(), s, d, currentUser);
-            JOptionPane.showMessageDialog(frame, "Created auction ID="+a.getId());
-            refreshTable();
-        } catch (Exception ex) { JOptionPane.showMessageDialog(frame, "Invalid input: " + ex.getMessage()); }
+        listings.submit(new ListingPipeline.Listing(currentUser, title.getText(), desc.getText(), null, start.getText(), dur.getText()))
+                .whenComplete((a, err) -> SwingUtilities.invokeLater(() -> {
+                    if (err == null) {
+                        JOptionPane.showMessageDialog(frame, "Created auction ID="+a.getId());
+                        refreshTable();
+                    } else {
+                        Throwable cause = err instanceof java.util.concurrent.CompletionException && err.getCause() != null ? err.getCause() : err;
+                        JOptionPane.showMessageDialog(frame, "Invalid input: " + cause.getMessage());
+                    }
+                }));
     }
 
     private void closeAuctionAction() {
@@ -430,6 +524,9 @@ public class AuctionDashboard {
             return;
         }
         if (opt == 1) { // Close & Announce
+            // use the closed snapshot so late bids before the close are reflected
+            OnlineAuctionSystem.Auction closed = service.getAuction(id);
+            if (closed != null) a = closed;
             OnlineAuctionSystem.User winner = a.getHighestBidder();
             String announcement;
             if (winner == null) {
@@ -470,12 +567,68 @@ public class AuctionDashboard {
         }
     }
 
+    // ---------- RENDER CACHE ----------
+    // Theme art pre-rendered once into images in the screen's native format, so repaints
+    // are plain blits instead of rasterising gradients and shapes every time. EDT only,
+    // except the logo, which is read once on a background thread.
+    private static final class RenderCache {
+        private static final java.util.Map<String, BufferedImage> images = new java.util.HashMap<>();
+        static final java.util.concurrent.CompletableFuture<BufferedImage> LOGO =
+                java.util.concurrent.CompletableFuture.supplyAsync(RenderCache::readLogo);
+
+        static BufferedImage compatible(int w, int h, int transparency) {
+            if (GraphicsEnvironment.isHeadless()) return new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration().createCompatibleImage(w, h, transparency);
+        }
+
+        // 1px-wide vertical gradient; drawImage stretches it across any width
+        static BufferedImage gradient(Color top, Color bottom, int h) {
+            return images.computeIfAbsent("gradient:" + top.getRGB() + ":" + bottom.getRGB() + ":" + h, k -> {
+                BufferedImage img = compatible(1, Math.max(1, h), Transparency.OPAQUE);
+                Graphics2D g = img.createGraphics();
+                g.setPaint(new GradientPaint(0, 0, top, 0, h, bottom));
+                g.fillRect(0, 0, 1, h);
+                g.dispose();
+                return img;
+            });
+        }
+
+        static Icon dot(Color c, int size) {
+            return new ImageIcon(images.computeIfAbsent("dot:" + c.getRGB() + ":" + size, k -> {
+                BufferedImage img = compatible(size, size, Transparency.TRANSLUCENT);
+                Graphics2D g = img.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setColor(c);
+                g.fillOval(0, 0, size, size);
+                g.dispose();
+                return img;
+            }));
+        }
+
+        // logo.png or resources/logo.png converted to the native format, or null if absent
+        private static BufferedImage readLogo() {
+            try {
+                File f = new File("logo.png");
+                if (!f.exists()) f = new File("resources/logo.png");
+                if (!f.exists()) return null;
+                BufferedImage src = ImageIO.read(f);
+                if (src == null) return null;
+                BufferedImage img = compatible(src.getWidth(), src.getHeight(), Transparency.TRANSLUCENT);
+                Graphics2D g = img.createGraphics();
+                g.drawImage(src, 0, 0, null);
+                g.dispose();
+                return img;
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+    }
+
     private static class LoginResult { final boolean loggedIn; final OnlineAuctionSystem.User user; LoginResult(boolean l, OnlineAuctionSystem.User u){loggedIn=l;user=u;} }
 
     // Dedicated login window (separate screen) shown before dashboard
     private class LoginWindow extends JDialog {
-        // image loaded from project folder if present
-        private BufferedImage logoImage = null;
         private final File configFile = new File(System.getProperty("user.home"), ".auctiondashboard.properties");
 
         private String loadRememberedUser() {
@@ -505,11 +658,7 @@ public class AuctionDashboard {
             JPanel main = new JPanel(new BorderLayout(8,8)) {
                 @Override public void paintComponent(Graphics g) {
                     super.paintComponent(g);
-                    Graphics2D g2 = (Graphics2D) g;
-                    int w = getWidth(), h = getHeight();
-                    GradientPaint gp = new GradientPaint(0,0, THEME_BG, 0, h, Color.white);
-                    g2.setPaint(gp);
-                    g2.fillRect(0,0,w,h);
+                    g.drawImage(RenderCache.gradient(THEME_BG, Color.white, getHeight()), 0, 0, getWidth(), getHeight(), null);
                 }
             };
             setContentPane(main);
@@ -521,7 +670,7 @@ public class AuctionDashboard {
             JLabel htitle = new JLabel("Login to Auction Dashboard");
             htitle.setForeground(Color.white);
             htitle.setFont(new Font("SansSerif", Font.BOLD, 16));
-            htitle.setIcon(new Icon() { public int getIconWidth(){ return 12; } public int getIconHeight(){ return 12; } public void paintIcon(Component c, Graphics g, int x, int y){ g.setColor(THEME_ACCENT); g.fillOval(x,y,12,12); } });
+            htitle.setIcon(RenderCache.dot(THEME_ACCENT, 12));
             hdr.add(htitle, BorderLayout.WEST);
             add(hdr, BorderLayout.NORTH);
 
@@ -529,21 +678,30 @@ public class AuctionDashboard {
             JPanel body = new JPanel(new BorderLayout(8,8));
             body.setOpaque(false);
 
-            // Logo panel: either load an external image named 'logo.png' in the project folder, or draw emblem
+            // Logo panel: the external 'logo.png' once it has loaded, otherwise the drawn emblem.
+            // Either is rendered at the panel size once and blitted on later repaints.
             JPanel logo = new JPanel() {
+                private BufferedImage rendered;
+                private boolean renderedLogo;
+
                 @Override public void paintComponent(Graphics g) {
                     super.paintComponent(g);
                     int w = getWidth(); int h = getHeight();
-                    Graphics2D g2 = (Graphics2D) g;
-                    g2.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING, java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
-                    // try load external logo if not loaded yet
-                    if (logoImage == null) {
-                        try {
-                            File f = new File("logo.png");
-                            if (!f.exists()) f = new File("resources/logo.png");
-                            if (f.exists()) logoImage = ImageIO.read(f);
-                        } catch (Exception ex) { logoImage = null; }
+                    if (w <= 0 || h <= 0) return;
+                    BufferedImage logoImage = RenderCache.LOGO.getNow(null);
+                    if (rendered == null || rendered.getWidth() != w || rendered.getHeight() != h || renderedLogo != (logoImage != null)) {
+                        rendered = RenderCache.compatible(w, h, Transparency.TRANSLUCENT);
+                        renderedLogo = logoImage != null;
+                        Graphics2D rg = rendered.createGraphics();
+                        paintLogo(rg, logoImage, w, h);
+                        rg.dispose();
                     }
+                    g.drawImage(rendered, 0, 0, null);
+                }
+
+                private void paintLogo(Graphics2D g2, BufferedImage logoImage, int w, int h) {
+                    g2.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING, java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
+                    g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
                     if (logoImage != null) {
                         // draw centered scaled image
                         int iw = logoImage.getWidth();
@@ -572,6 +730,7 @@ public class AuctionDashboard {
             };
             logo.setPreferredSize(new Dimension(140,120));
             logo.setOpaque(false);
+            RenderCache.LOGO.thenRun(() -> SwingUtilities.invokeLater(logo::repaint));
             body.add(logo, BorderLayout.WEST);
 
             JPanel form = new JPanel(new BorderLayout(4,8));
@@ -0,0 +1,258 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+// Incrementally maintained "hot auction" views: most-bid, fastest-rising and
+// closing-soon-with-most-activity. An accepted bid only updates its auction's
+// counters and, the first time since the last drain, queues the auction. Queued
+// auctions are applied to the boards in batches, O(log C) each on boards of at most
+// C entries: by the bidder that fills the queue to DRAIN_AT, if no drain is already
+// running, and by every read before it walks the boards. Bidders never wait on a
+// board, and a burst of bids on one auction reaches the boards once.
+//
+// Activity and price rise decay exponentially with a configurable half-life
+// (forward decay): a bid at time t contributes weight e^(lambda*t), kept as a
+// log so it never overflows. Scores only grow, so comparing stored scores
+// orders auctions by their decayed value at any common "now", and an auction
+// can only enter a board at the moment it receives a bid.
+//
+// Bid bookkeeping runs after the bid is published, so it can arrive after the
+// auction has closed. Board updates for an auction happen under its Stats monitor,
+// which onClose marks dead under the same monitor, and a drain re-checks the latest
+// snapshot before applying, so a closed auction never re-enters a board.
+public class AuctionRankings {
+
+    public enum Ranking { MOST_BID, FASTEST_RISING, MOST_ACTIVE }
+
+    // One leaderboard row
+    public static class Entry {
+        private final long auctionId;
+        private final double value;
+        private final Instant endsAt;
+
+        Entry(long auctionId, double value, Instant endsAt) {
+            this.auctionId = auctionId;
+            this.value = value;
+            this.endsAt = endsAt;
+        }
+
+        public long getAuctionId() { return auctionId; }
+        // Total bids for MOST_BID; decayed bids or decayed price rise for the others
+        public double getValue() { return value; }
+        public Instant getEndsAt() { return endsAt; }
+
+        @Override
+        public String toString() { return String.format("#%d %.2f", auctionId, value); }
+    }
+
+    // Per-auction counters, updated under the object's monitor
+    private static final class Stats {
+        final long auctionId;
+        boolean dead;      // closed; the entry is gone from the map and must not be offered
+        boolean queued;    // waiting in pending for the next drain
+        long totalBids;
+        double logActivity = Double.NEGATIVE_INFINITY;
+        double logRise = Double.NEGATIVE_INFINITY;
+        Instant endsAt;
+
+        Stats(long auctionId) { this.auctionId = auctionId; }
+    }
+
+    static final int DRAIN_AT = 4096;
+
+    private final double lambdaPerMs;
+    private final Clock clock;
+    private final LongFunction<OnlineAuctionSystem.Auction> current;
+    private final Map<Long, Stats> stats = new ConcurrentHashMap<>();
+    private final Queue<Stats> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock draining = new ReentrantLock();
+    private final Board mostBid;
+    private final Board rising;
+    private final Board active;
+
+    // current resolves the latest published snapshot of an auction
+    public AuctionRankings(int capacity, Duration halfLife, Clock clock, LongFunction<OnlineAuctionSystem.Auction> current) {
+        this.clock = clock;
+        this.current = current;
+        this.lambdaPerMs = Math.log(2) / Math.max(1, halfLife.toMillis());
+        this.mostBid = new Board(capacity);
+        this.rising = new Board(capacity);
+        // closing-soon is filtered from the activity board at read time, so keep it deeper
+        this.active = new Board(capacity * 4);
+    }
+
+    // Record newBids accepted bids that moved the price by rise, the last one at time
+    public void onBid(long auctionId, int newBids, double rise, Instant time, Instant endsAt) {
+        double t = time.toEpochMilli() * lambdaPerMs;
+        Stats s = stats.computeIfAbsent(auctionId, Stats::new);
+        boolean full = false;
+        synchronized (s) {
+            if (s.dead) return;
+            s.totalBids += newBids;
+            s.logActivity = logAdd(s.logActivity, Math.log(newBids) + t);
+            if (rise > 0) s.logRise = logAdd(s.logRise, Math.log(rise) + t);
+            s.endsAt = endsAt;
+            if (!s.queued) {
+                s.queued = true;
+                pending.add(s);
+                full = pendingCount.incrementAndGet() >= DRAIN_AT;
+            }
+        }
+        if (full) drain(false);
+    }
+
+    // Apply queued auctions to the boards. A bidder only drains if nobody else is;
+    // a reader waits for the running drain and then finishes the queue itself.
+    private void drain(boolean wait) {
+        if (wait) draining.lock();
+        else if (!draining.tryLock()) return;
+        try {
+            Stats s;
+            while ((s = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                apply(s);
+            }
+        } finally {
+            draining.unlock();
+        }
+    }
+
+    private void apply(Stats s) {
+        synchronized (s) {
+            s.queued = false;
+            if (s.dead) return;
+            OnlineAuctionSystem.Auction latest = current.apply(s.auctionId);
+            if (latest == null || latest.isClosed()) {
+                // closed after these bids, possibly only by time with onClose still to come
+                // (and then not finding these stats), so clear the boards here
+                s.dead = true;
+                stats.remove(s.auctionId, s);
+                mostBid.remove(s.auctionId);
+                rising.remove(s.auctionId);
+                active.remove(s.auctionId);
+                return;
+            }
+            mostBid.offer(s.auctionId, s.totalBids, s.endsAt);
+            active.offer(s.auctionId, s.logActivity, s.endsAt);
+            if (s.logRise != Double.NEGATIVE_INFINITY) rising.offer(s.auctionId, s.logRise, s.endsAt);
+        }
+    }
+
+    // Closed auctions leave every view
+    public void onClose(long auctionId) {
+        Stats s = stats.get(auctionId);
+        if (s == null) return;
+        synchronized (s) {
+            s.dead = true;
+            stats.remove(auctionId, s);
+            mostBid.remove(auctionId);
+            rising.remove(auctionId);
+            active.remove(auctionId);
+        }
+    }
+
+    public List<Entry> top(Ranking ranking, int k) {
+        return top(ranking, k, clock.instant());
+    }
+
+    public List<Entry> top(Ranking ranking, int k, Instant now) {
+        drain(true);
+        return switch (ranking) {
+            case MOST_BID -> mostBid.top(k, null, score -> score);
+            case FASTEST_RISING -> rising.top(k, null, score -> decayed(score, now));
+            case MOST_ACTIVE -> active.top(k, null, score -> decayed(score, now));
+        };
+    }
+
+    public List<Entry> closingSoon(int k, Duration horizon) {
+        return closingSoon(k, horizon, clock.instant());
+    }
+
+    // Most active auctions that end within horizon of now
+    public List<Entry> closingSoon(int k, Duration horizon, Instant now) {
+        Instant limit = now.plus(horizon);
+        drain(true);
+        return active.top(k, e -> !e.endsAt.isBefore(now) && !e.endsAt.isAfter(limit), score -> decayed(score, now));
+    }
+
+    private double decayed(double logScore, Instant now) {
+        return Math.exp(logScore - now.toEpochMilli() * lambdaPerMs);
+    }
+
+    // log(e^a + e^b) without leaving log space
+    private static double logAdd(double a, double b) {
+        if (a == Double.NEGATIVE_INFINITY) return b;
+        double hi = Math.max(a, b), lo = Math.min(a, b);
+        return hi + Math.log1p(Math.exp(lo - hi));
+    }
+
+    // ---------- BOARD ----------
+    // Bounded top-C set. Offers below the current floor are rejected without locking.
+    private static final class Board {
+        private static final Comparator<Node> ORDER = Comparator
+                .comparingDouble((Node n) -> n.score).reversed()
+                .thenComparingLong(n -> n.auctionId);
+
+        private static final class Node {
+            final long auctionId;
+            final double score;
+            final Instant endsAt;
+            Node(long auctionId, double score, Instant endsAt) {
+                this.auctionId = auctionId;
+                this.score = score;
+                this.endsAt = endsAt;
+            }
+        }
+
+        private final int capacity;
+        private final TreeSet<Node> ranked = new TreeSet<>(ORDER);
+        private final Map<Long, Node> members = new HashMap<>();
+        private volatile double floor = Double.NEGATIVE_INFINITY;
+
+        Board(int capacity) { this.capacity = capacity; }
+
+        void offer(long auctionId, double score, Instant endsAt) {
+            if (score <= floor) return;
+            synchronized (this) {
+                Node old = members.get(auctionId);
+                if (old != null) {
+                    if (old.score > score) return;   // a later update already landed
+                    ranked.remove(old);
+                } else if (ranked.size() >= capacity) {
+                    Node last = ranked.last();
+                    if (score <= last.score) return;
+                    ranked.pollLast();
+                    members.remove(last.auctionId);
+                }
+                Node n = new Node(auctionId, score, endsAt);
+                ranked.add(n);
+                members.put(auctionId, n);
+                floor = ranked.size() >= capacity ? ranked.last().score : Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        synchronized void remove(long auctionId) {
+            Node n = members.remove(auctionId);
+            if (n == null) return;
+            ranked.remove(n);
+            floor = Double.NEGATIVE_INFINITY;
+        }
+
+        synchronized List<Entry> top(int k, java.util.function.Predicate<Node> filter,
+                                     java.util.function.DoubleUnaryOperator value) {
+            List<Entry> out = new ArrayList<>(Math.min(k, ranked.size()));
+            for (Node n : ranked) {
+                if (out.size() == k) break;
+                if (filter == null || filter.test(n)) out.add(new Entry(n.auctionId, value.applyAsDouble(n.score), n.endsAt));
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+
+// Deterministic discrete-event simulation of AuctionService on virtual time.
+//
+// Synthetic users sign up, list auctions and bid over a simulated horizon while the
+// service reads a VirtualClock that jumps straight from one event to the next, so a
+// month of traffic runs in however long the service calls themselves take. Every
+// random choice comes from the service's seeded Random, so the same arguments
+// replay the same run. Reports wall-clock throughput and per-operation latency; the
+// latency covers only the service call, not the simulator's own bookkeeping.
+//
+// Usage: java AuctionSimulator [users] [auctions] [bidsPerAuction] [days] [seed]
+public class AuctionSimulator {
+
+    // Clock whose time only moves when the simulation advances it
+    public static class VirtualClock extends Clock {
+        private volatile Instant now;
+
+        public VirtualClock(Instant start) { this.now = start; }
+
+        public void advanceTo(Instant t) { if (t.isAfter(now)) now = t; }
+
+        @Override public Instant instant() { return now; }
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+    }
+
+    private static final int REGISTER = 0, CREATE = 1, BID = 2, EXPIRE = 3;
+    private static final String[] OPS = {"register", "create", "bid", "expire"};
+    private static final String[] CATEGORIES = {"Collectible", "Electronics", "Luxury", "Antique", "Gadget", "Vehicle", "Accessory", "Artwork", "Jewelry", "Instrument"};
+
+    private static final class Event {
+        final long at;      // virtual epoch ms
+        final long seq;     // tie-break so equal times replay in scheduling order
+        final int type;
+        final long ref;     // auction id for BID
+        Event(long at, long seq, int type, long ref) { this.at = at; this.seq = seq; this.type = type; this.ref = ref; }
+    }
+
+    private final int users, auctions, bidsPerAuction;
+    private final long horizonMs;
+    private final VirtualClock clock;
+    private final OnlineAuctionSystem.AuctionService service;
+    private final Random rnd;
+    private final PriorityQueue<Event> events = new PriorityQueue<>(
+            Comparator.comparingLong((Event e) -> e.at).thenComparingLong(e -> e.seq));
+    private final List<OnlineAuctionSystem.User> registered = new ArrayList<>();
+    private final LatencyHistogram[] latency = new LatencyHistogram[OPS.length];
+    private long seq, accepted, rejected;
+
+    public AuctionSimulator(int users, int auctions, int bidsPerAuction, Duration horizon, long seed) {
+        this.users = users;
+        this.auctions = auctions;
+        this.bidsPerAuction = bidsPerAuction;
+        this.horizonMs = horizon.toMillis();
+        this.clock = new VirtualClock(Instant.parse("2026-01-01T00:00:00Z"));
+        this.service = new OnlineAuctionSystem.AuctionService(clock, new Random(seed));
+        this.rnd = service.getRandom();
+        for (int i = 0; i < latency.length; i++) latency[i] = new LatencyHistogram();
+    }
+
+    public OnlineAuctionSystem.AuctionService getService() { return service; }
+
+    public void run() {
+        long start = clock.millis();
+        // users arrive over the first half of the horizon, listings over the first three
+        // quarters (so most can finish), expiry runs once a virtual minute
+        for (int i = 0; i < users; i++) schedule(start + (long) (rnd.nextDouble() * horizonMs / 2), REGISTER, 0);
+        for (int i = 0; i < auctions; i++) schedule(start + (long) (rnd.nextDouble() * horizonMs * 3 / 4), CREATE, 0);
+        for (long t = start; t <= start + horizonMs; t += 60_000) schedule(t, EXPIRE, 0);
+
+        long wall0 = System.nanoTime(), ops = 0;
+        Event e;
+        while ((e = events.poll()) != null) {
+            clock.advanceTo(Instant.ofEpochMilli(e.at));
+            switch (e.type) {
+                case REGISTER -> register();
+                case CREATE -> create();
+                case BID -> bid(e.ref);
+                default -> {
+                    long t0 = System.nanoTime();
+                    service.expireAuctions();
+                    latency[EXPIRE].record(System.nanoTime() - t0);
+                }
+            }
+            ops++;
+        }
+        long wall = System.nanoTime() - wall0;
+
+        System.out.printf("sim: virtual %s in %.2fs wall (%.0fx real time), %d ops, %.0f ops/s%n",
+                Duration.ofMillis(clock.millis() - start), wall / 1e9, (clock.millis() - start) / (wall / 1e6),
+                ops, ops / (wall / 1e9));
+        System.out.printf("sim: bids accepted=%d rejected=%d, notifier %s%n", accepted, rejected, service.getNotifier().metrics());
+        for (int i = 0; i < OPS.length; i++) System.out.printf("sim: %-8s %s%n", OPS[i], latency[i].summary());
+    }
+
+    private void register() {
+        String name = "sim" + registered.size();
+        long t0 = System.nanoTime();
+        OnlineAuctionSystem.User u = service.registerUser(name, "pw");
+        latency[REGISTER].record(System.nanoTime() - t0);
+        registered.add(u);
+    }
+
+    private void create() {
+        if (registered.isEmpty()) return;
+        OnlineAuctionSystem.User owner = registered.get(rnd.nextInt(registered.size()));
+        long durationSec = 3600L * (1 + rnd.nextInt(7 * 24));     // one hour to a week
+        String cat = CATEGORIES[rnd.nextInt(CATEGORIES.length)];
+        double start = 10 + rnd.nextInt(1000);
+        long t0 = System.nanoTime();
+        OnlineAuctionSystem.Auction a = service.createAuction(cat + " lot", "simulated", cat, start, durationSec, owner);
+        latency[CREATE].record(System.nanoTime() - t0);
+        scheduleNextBid(a);
+    }
+
+    private void bid(long auctionId) {
+        OnlineAuctionSystem.Auction a = service.getAuction(auctionId);
+        if (a == null || a.isClosed()) return;
+        OnlineAuctionSystem.User bidder = registered.get(rnd.nextInt(registered.size()));
+        double amount = a.getCurrentPrice() + 1 + rnd.nextInt(50);
+        if (rnd.nextInt(10) == 0) amount -= 25;                    // some bids lose to a faster rival
+        long t0 = System.nanoTime();
+        boolean ok = service.placeBid(auctionId, bidder, amount);
+        latency[BID].record(System.nanoTime() - t0);
+        if (ok) accepted++;
+        else rejected++;
+        scheduleNextBid(service.getAuction(auctionId));
+    }
+
+    // Exponential gaps averaging bidsPerAuction over the listing, compressed toward
+    // the end so the soft-close window sees realistic last-minute activity
+    private void scheduleNextBid(OnlineAuctionSystem.Auction a) {
+        long now = clock.millis(), left = a.getEndsAt().toEpochMilli() - now;
+        if (left <= 0) return;
+        long life = a.getEndsAt().toEpochMilli() - a.getCreatedAt().toEpochMilli();
+        double meanGap = (double) life / bidsPerAuction * Math.max(0.05, (double) left / life);
+        long gap = (long) (-Math.log(1 - rnd.nextDouble()) * meanGap);
+        if (gap < left) schedule(now + Math.max(1, gap), BID, a.getId());
+    }
+
+    private void schedule(long at, int type, long ref) {
+        events.add(new Event(at, seq++, type, ref));
+    }
+
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int auctions = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int bids = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int days = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+        new AuctionSimulator(users, auctions, bids, Duration.ofDays(days), seed).run();
+    }
+}
@@ -0,0 +1,359 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Compact binary protocol for submitting bids and streaming price updates over NIO.
+//
+// Every frame starts with a 3-byte header: u16 total frame length, u8 type. All
+// fields are fixed-width little-endian, so the codec reads and writes them in place
+// in (direct) ByteBuffers and never allocates per message.
+//
+//   BID        seq:i32 auctionId:i64 bidderId:i64 amount:f64
+//   ACK        seq:i32 accepted:u8
+//   SUBSCRIBE  (no payload) - start streaming PRICE frames on this connection
+//   PRICE      auctionId:i64 version:i64 price:f64 endsAtMs:i64 bidCount:i32 closed:u8 leaderId:i64
+//   BID_RECORD auctionId:i64 bidderId:i64 amount:f64 timeMs:i64
+public class AuctionWire {
+
+    public static final int HEADER = 3;
+    public static final byte BID = 1;
+    public static final byte ACK = 2;
+    public static final byte SUBSCRIBE = 3;
+    public static final byte PRICE = 4;
+    public static final byte BID_RECORD = 5;
+
+    public static final int BID_LEN = HEADER + 4 + 8 + 8 + 8;
+    public static final int ACK_LEN = HEADER + 4 + 1;
+    public static final int SUBSCRIBE_LEN = HEADER;
+    public static final int PRICE_LEN = HEADER + 8 + 8 + 8 + 8 + 4 + 1 + 8;
+    public static final int BID_RECORD_LEN = HEADER + 8 + 8 + 8 + 8;
+
+    // ---------- ENCODING ----------
+    // Each encoder appends one frame at the buffer's position and returns false,
+    // writing nothing, if it does not fit.
+
+    public static boolean encodeBid(ByteBuffer out, int seq, long auctionId, long bidderId, double amount) {
+        if (!header(out, BID_LEN, BID)) return false;
+        out.putInt(seq).putLong(auctionId).putLong(bidderId).putDouble(amount);
+        return true;
+    }
+
+    public static boolean encodeAck(ByteBuffer out, int seq, boolean accepted) {
+        if (!header(out, ACK_LEN, ACK)) return false;
+        out.putInt(seq).put((byte) (accepted ? 1 : 0));
+        return true;
+    }
+
+    public static boolean encodeSubscribe(ByteBuffer out) {
+        return header(out, SUBSCRIBE_LEN, SUBSCRIBE);
+    }
+
+    public static boolean encodePrice(ByteBuffer out, OnlineAuctionSystem.Auction a) {
+        if (!header(out, PRICE_LEN, PRICE)) return false;
+        OnlineAuctionSystem.User leader = a.getHighestBidder();
+        out.putLong(a.getId()).putLong(a.getVersion()).putDouble(a.getCurrentPrice())
+           .putLong(a.getEndsAt().toEpochMilli()).putInt(a.getBidCount())
+           .put((byte) (a.isClosed() ? 1 : 0)).putLong(leader == null ? 0 : leader.getId());
+        return true;
+    }
+
+    public static boolean encodeBidRecord(ByteBuffer out, long auctionId, OnlineAuctionSystem.Bid b) {
+        if (!header(out, BID_RECORD_LEN, BID_RECORD)) return false;
+        out.putLong(auctionId).putLong(b.getBidder().getId()).putDouble(b.getAmount())
+           .putLong(b.getTime().toEpochMilli());
+        return true;
+    }
+
+    private static boolean header(ByteBuffer out, int len, byte type) {
+        if (out.remaining() < len) return false;
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        out.putShort((short) len).put(type);
+        return true;
+    }
+
+    // ---------- DECODING ----------
+    // Flyweight over a frame inside a buffer: next() points it at a frame start,
+    // the accessors read fields with absolute gets.
+
+    public static final class Frame {
+        private ByteBuffer buf;
+        private int at;
+
+        // Point at the frame starting at buf's position if it is complete; on success
+        // the position is advanced past it. Returns false if more bytes are needed.
+        // A length shorter than the header is corrupt input and throws IOException.
+        public boolean next(ByteBuffer in) throws IOException {
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            if (in.remaining() < HEADER) return false;
+            int len = in.getShort(in.position()) & 0xFFFF;
+            if (len < HEADER) throw new IOException("Corrupt frame length " + len);
+            if (in.remaining() < len) return false;
+            buf = in;
+            at = in.position();
+            in.position(at + len);
+            return true;
+        }
+
+        public int length() { return buf.getShort(at) & 0xFFFF; }
+        public byte type() { return buf.get(at + 2); }
+
+        // BID
+        public int bidSeq() { return buf.getInt(at + 3); }
+        public long bidAuctionId() { return buf.getLong(at + 7); }
+        public long bidBidderId() { return buf.getLong(at + 15); }
+        public double bidAmount() { return buf.getDouble(at + 23); }
+
+        // ACK
+        public int ackSeq() { return buf.getInt(at + 3); }
+        public boolean ackAccepted() { return buf.get(at + 7) != 0; }
+
+        // PRICE
+        public long priceAuctionId() { return buf.getLong(at + 3); }
+        public long priceVersion() { return buf.getLong(at + 11); }
+        public double price() { return buf.getDouble(at + 19); }
+        public long priceEndsAtMs() { return buf.getLong(at + 27); }
+        public int priceBidCount() { return buf.getInt(at + 35); }
+        public boolean priceClosed() { return buf.get(at + 39) != 0; }
+        public long priceLeaderId() { return buf.getLong(at + 40); }
+
+        // BID_RECORD
+        public long recordAuctionId() { return buf.getLong(at + 3); }
+        public long recordBidderId() { return buf.getLong(at + 11); }
+        public double recordAmount() { return buf.getDouble(at + 19); }
+        public long recordTimeMs() { return buf.getLong(at + 27); }
+    }
+
+    // ---------- SERVER ----------
+    // Single-threaded selector loop. BID frames are applied to the service and answered
+    // with an ACK in order. Every change the service publishes, from any path (wire,
+    // console, dashboard, batch bids, Dutch takes, closes, expiry), is streamed as PRICE
+    // frames to subscribers: the service's update listener keeps the latest snapshot per
+    // auction and wakes the selector, which sends them between rounds, so a burst on one
+    // auction coalesces to its newest state. A connection whose output buffer cannot take
+    // its ACK stops being read until it drains, and a subscriber that falls behind skips
+    // price updates (counted in dropped).
+    public static class Server implements Runnable, AutoCloseable {
+        private static final int BUFFER = 64 * 1024;
+
+        private final OnlineAuctionSystem.AuctionService service;
+        private final Selector selector;
+        private final ServerSocketChannel listener;
+        private final List<Connection> subscribers = new ArrayList<>();
+        private final Map<Long, OnlineAuctionSystem.Auction> updates = new ConcurrentHashMap<>();
+        private final AtomicBoolean wakeQueued = new AtomicBoolean();
+        private final OnlineAuctionSystem.AuctionService.UpdateListener updateHook = this::updated;
+        private volatile boolean streaming;     // any subscribers; skips the hand-off if not
+        private final Frame frame = new Frame();
+        private volatile boolean running = true;
+        private volatile boolean started;
+        private volatile long dropped;
+
+        private static final class Connection {
+            final SocketChannel ch;
+            final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            Connection(SocketChannel ch) { this.ch = ch; }
+        }
+
+        public Server(OnlineAuctionSystem.AuctionService service, int port) throws IOException {
+            this.service = service;
+            this.selector = Selector.open();
+            this.listener = ServerSocketChannel.open();
+            listener.bind(new InetSocketAddress("127.0.0.1", port));
+            listener.configureBlocking(false);
+            listener.register(selector, SelectionKey.OP_ACCEPT);
+        }
+
+        public int getPort() { return listener.socket().getLocalPort(); }
+        public long getDroppedUpdates() { return dropped; }
+
+        @Override
+        public void run() {
+            started = true;
+            service.addUpdateListener(updateHook);
+            try {
+                while (running) {
+                    selector.select(100);
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        try {
+                            if (key.isAcceptable()) accept();
+                            else {
+                                Connection c = (Connection) key.attachment();
+                                if (key.isWritable()) { flush(c, key); process(c, key); }
+                                if (key.isValid() && key.isReadable()) read(c, key);
+                            }
+                        } catch (IOException | RuntimeException ex) {
+                            // malformed input or a failing request only costs that connection
+                            drop(key);
+                        }
+                    }
+                    sendUpdates();
+                }
+            } catch (IOException ex) {
+                throw new IllegalStateException("Wire server failed", ex);
+            } finally {
+                service.removeUpdateListener(updateHook);
+                shutdown();
+            }
+        }
+
+        // Service side, on the publishing thread: keep the newest snapshot, wake the loop once
+        private void updated(OnlineAuctionSystem.Auction a) {
+            if (!streaming) return;
+            updates.merge(a.getId(), a, (old, cur) -> cur.getVersion() >= old.getVersion() ? cur : old);
+            if (wakeQueued.compareAndSet(false, true)) selector.wakeup();
+        }
+
+        private void sendUpdates() {
+            wakeQueued.set(false);
+            if (updates.isEmpty()) return;
+            for (Long id : updates.keySet()) {
+                OnlineAuctionSystem.Auction a = updates.remove(id);
+                if (a == null) continue;
+                // walk backwards: a subscriber whose flush fails is dropped, and removed from
+                // the list, without disturbing the ones still to visit
+                for (int i = subscribers.size() - 1; i >= 0; i--) {
+                    Connection s = subscribers.get(i);
+                    if (!encodePrice(s.out, a)) dropped++;
+                }
+            }
+            for (int i = subscribers.size() - 1; i >= 0; i--) {
+                Connection s = subscribers.get(i);
+                flush(s, s.ch.keyFor(selector));
+            }
+        }
+
+        private void accept() throws IOException {
+            SocketChannel ch = listener.accept();
+            if (ch == null) return;
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+            ch.register(selector, SelectionKey.OP_READ, new Connection(ch));
+        }
+
+        private void read(Connection c, SelectionKey key) throws IOException {
+            if (c.ch.read(c.in) < 0) { drop(key); return; }
+            process(c, key);
+        }
+
+        // Handle every complete buffered frame that can still be answered
+        private void process(Connection c, SelectionKey key) throws IOException {
+            if (c.in.position() == 0 || !key.isValid()) return;
+            c.in.flip();
+            while (c.out.remaining() >= ACK_LEN && frame.next(c.in)) {
+                switch (frame.type()) {
+                    case BID -> { expectLength(BID_LEN); onBid(c); }
+                    case SUBSCRIBE -> {
+                        expectLength(SUBSCRIBE_LEN);
+                        subscribers.add(c);
+                        streaming = true;
+                    }
+                    default -> throw new IOException("Unexpected frame type " + frame.type());
+                }
+            }
+            c.in.compact();
+            flush(c, key);
+        }
+
+        private void expectLength(int len) throws IOException {
+            if (frame.length() != len) throw new IOException("Bad length " + frame.length() + " for frame type " + frame.type());
+        }
+
+        private void onBid(Connection c) {
+            long auctionId = frame.bidAuctionId();
+            OnlineAuctionSystem.User bidder = service.getUserById(frame.bidBidderId());
+            boolean ok = bidder != null && service.placeBid(auctionId, bidder, frame.bidAmount());
+            encodeAck(c.out, frame.bidSeq(), ok);
+        }
+
+        private void flush(Connection c, SelectionKey key) {
+            if (key == null || !key.isValid()) return;
+            try {
+                c.out.flip();
+                c.ch.write(c.out);
+                c.out.compact();
+                // keep OP_READ off while an ACK would not fit, so a slow reader throttles itself
+                int ops = c.out.position() > 0 ? SelectionKey.OP_WRITE : 0;
+                if (c.out.remaining() >= ACK_LEN) ops |= SelectionKey.OP_READ;
+                key.interestOps(ops);
+            } catch (IOException ex) {
+                drop(key);
+            }
+        }
+
+        private void drop(SelectionKey key) {
+            Object c = key.attachment();
+            if (c != null && subscribers.remove(c)) streaming = !subscribers.isEmpty();
+            key.cancel();
+            try { key.channel().close(); } catch (IOException ignored) {}
+        }
+
+        // Stops the loop; the selector thread releases the sockets on its way out.
+        // A server that was never run is released here instead.
+        @Override
+        public void close() {
+            boolean wasRunning = running;
+            running = false;
+            if (wasRunning && started) selector.wakeup();
+            else shutdown();
+        }
+
+        private synchronized void shutdown() {
+            if (!selector.isOpen()) return;
+            try {
+                listener.close();
+                for (SelectionKey k : selector.keys()) k.channel().close();
+                selector.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    // ---------- CLIENT ----------
+    // Blocking client for pipelined use: queue frames with the encoders on out(),
+    // flush(), then read() replies into in() and walk them with a Frame.
+    public static class Client implements AutoCloseable {
+        private final SocketChannel ch;
+        private final ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        private final ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        public Client(int port) throws IOException {
+            ch = SocketChannel.open(new InetSocketAddress("127.0.0.1", port));
+            ch.socket().setTcpNoDelay(true);
+        }
+
+        public ByteBuffer out() { return out; }
+
+        public void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) ch.write(out);
+            out.clear();
+        }
+
+        // Read whatever is available (blocking for at least one byte) and return the
+        // buffer flipped for decoding; call compactIn() once the complete frames are consumed
+        public ByteBuffer read() throws IOException {
+            if (ch.read(in) < 0) throw new IOException("Server closed the connection");
+            in.flip();
+            return in;
+        }
+
+        public void compactIn() { in.compact(); }
+
+        @Override
+        public void close() throws IOException { ch.close(); }
+    }
+}
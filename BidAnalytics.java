@@ -0,0 +1,457 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Columnar archive of closed auctions and their bids, with parallel aggregation.
+//
+// Archived auctions are written to immutable segment files in a directory. A segment
+// stores one fixed-width column per auction attribute and two compressed bid columns
+// (time and amount). Bids are kept grouped by auction; each value is stored as a
+// zigzag varint delta from the previous bid of the same auction (the first bid of an
+// auction, or of a block, is relative to the auction's creation time / starting price).
+// Bid columns are cut into blocks of BLOCK bids with an offset index, so every block
+// decodes on its own and a query fans out over all blocks of all segments in parallel.
+// Segments are memory-mapped read-only when the archive is opened.
+//
+// Segment layout (little-endian):
+//   magic:i32 format:i32 auctions:i32 bids:i32 blocks:i32 categories:i32
+//   categories x (len:u16 utf8)  padding to 8
+//   id:i64[A] createdMs:i64[A] endsMs:i64[A] startCents:i64[A] finalCents:i64[A]
+//   bidStart:i32[A] bidCount:i32[A] category:i16[A]  padding to 8
+//   timeOffset:i64[K] amountOffset:i64[K]
+//   time column bytes, amount column bytes
+public class BidAnalytics {
+
+    static final int MAGIC = 0x53444942;   // "BIDS"
+    static final int FORMAT = 1;
+    static final int BLOCK = 4096;
+    static final int SEGMENT_BIDS = 16 << 20;
+
+    // count/sum/min/max of a value
+    public static class Stats {
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        void add(double v) {
+            count++;
+            sum += v;
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+
+        void merge(Stats o) {
+            count += o.count;
+            sum += o.sum;
+            min = Math.min(min, o.min);
+            max = Math.max(max, o.max);
+        }
+
+        public long getCount() { return count; }
+        public double getSum() { return sum; }
+        public double getMin() { return min; }
+        public double getMax() { return max; }
+        public double getMean() { return count == 0 ? 0 : sum / count; }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d mean=%.2f min=%.2f max=%.2f", count, getMean(), min, max);
+        }
+    }
+
+    // Group of an aggregation: a category and a bucket whose meaning depends on the query
+    public static class Group implements Comparable<Group> {
+        private final String category;
+        private final long bucket;
+
+        Group(String category, long bucket) {
+            this.category = category;
+            this.bucket = bucket;
+        }
+
+        public String getCategory() { return category; }
+        public long getBucket() { return bucket; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Group)) return false;
+            Group g = (Group) o;
+            return g.bucket == bucket && g.category.equals(category);
+        }
+
+        @Override
+        public int hashCode() { return category.hashCode() * 31 + Long.hashCode(bucket); }
+
+        @Override
+        public int compareTo(Group o) {
+            int c = category.compareTo(o.category);
+            return c != 0 ? c : Long.compare(bucket, o.bucket);
+        }
+
+        @Override
+        public String toString() { return category + "/" + bucket; }
+    }
+
+    private final Path dir;
+    private final List<Segment> segments = new ArrayList<>();
+    private int nextSegment;
+
+    public BidAnalytics(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "segment-*.col")) {
+            List<Path> files = new ArrayList<>();
+            for (Path p : ds) files.add(p);
+            Collections.sort(files);
+            for (Path p : files) segments.add(new Segment(p));
+            nextSegment = files.size();
+        }
+    }
+
+    public synchronized int getSegmentCount() { return segments.size(); }
+
+    public synchronized long getBidCount() {
+        long n = 0;
+        for (Segment s : segments) n += s.bids;
+        return n;
+    }
+
+    // Archive closed auctions (typically AuctionService.drainClosed()) as new segments
+    public void archive(Collection<OnlineAuctionSystem.Auction> closed) throws IOException {
+        try (Writer w = writer()) {
+            for (OnlineAuctionSystem.Auction a : closed) {
+                List<OnlineAuctionSystem.Bid> bids = a.getBids();
+                long[] times = new long[bids.size()];
+                long[] cents = new long[bids.size()];
+                for (int i = 0; i < times.length; i++) {
+                    times[i] = bids.get(i).getTime().toEpochMilli();
+                    cents[i] = toCents(bids.get(i).getAmount());
+                }
+                w.auction(a.getId(), a.getCategory(), a.getCreatedAt().toEpochMilli(), a.getEndsAt().toEpochMilli(),
+                        toCents(a.getStartingPrice()), toCents(a.getCurrentPrice()), times, cents, times.length);
+            }
+        }
+    }
+
+    // Low-level bulk writer; segments become queryable when it is closed
+    public Writer writer() { return new Writer(); }
+
+    static long toCents(double amount) { return Math.round(amount * 100); }
+
+    // ---------- QUERIES ----------
+
+    // Final (closing) price per category; bucket is always 0. Lots that closed without a
+    // bid were never sold, so they are left out rather than counted at their starting price
+    public Map<Group, Stats> finalPrices() {
+        return aggregateAuctions(BidAnalytics::sold, (s, a) -> 0, (s, a) -> s.finalCents(a) / 100.0);
+    }
+
+    // Final price of sold lots per category and close-time bucket (bucket = bucket start, epoch ms)
+    public Map<Group, Stats> finalPrices(Duration bucket) {
+        long w = bucket.toMillis();
+        return aggregateAuctions(BidAnalytics::sold, (s, a) -> Math.floorDiv(s.endsMs(a), w) * w, (s, a) -> s.finalCents(a) / 100.0);
+    }
+
+    private static boolean sold(Segment s, int auction) { return s.bidCount(auction) > 0; }
+
+    // Bid amounts per category and bid-time bucket (bucket = bucket start, epoch ms);
+    // the count of each group is the bid velocity for that bucket
+    public Map<Group, Stats> bidsByTime(Duration bucket) {
+        long w = bucket.toMillis();
+        return aggregateBids((s, a, t, c) -> Math.floorDiv(t, w) * w, (s, a, t, c) -> c / 100.0);
+    }
+
+    // Price curve: bid amount relative to the starting price per category and position
+    // in the auction's lifetime (bucket 0..points-1)
+    public Map<Group, Stats> priceCurve(int points) {
+        return aggregateBids((s, a, t, c) -> {
+            long life = Math.max(1, s.endsMs(a) - s.createdMs(a));
+            return Math.min(points - 1, Math.max(0, (t - s.createdMs(a)) * points / life));
+        }, (s, a, t, c) -> s.startCents(a) == 0 ? 0 : (double) c / s.startCents(a));
+    }
+
+    interface AuctionTest { boolean test(Segment s, int auction); }
+    interface AuctionFn { long apply(Segment s, int auction); }
+    interface AuctionValue { double apply(Segment s, int auction); }
+    interface BidFn { long apply(Segment s, int auction, long timeMs, long cents); }
+    interface BidValue { double apply(Segment s, int auction, long timeMs, long cents); }
+
+    public Map<Group, Stats> aggregateAuctions(AuctionFn bucket, AuctionValue value) {
+        return aggregateAuctions((s, a) -> true, bucket, value);
+    }
+
+    // Only auctions passing filter are grouped
+    public Map<Group, Stats> aggregateAuctions(AuctionTest filter, AuctionFn bucket, AuctionValue value) {
+        List<Segment> segs = snapshot();
+        return segs.parallelStream().collect(HashMap::new, (out, s) -> {
+            Map<Long, Stats> local = new HashMap<>();
+            for (int a = 0; a < s.auctions; a++) {
+                if (!filter.test(s, a)) continue;
+                local.computeIfAbsent(key(s.category(a), bucket.apply(s, a)), k -> new Stats()).add(value.apply(s, a));
+            }
+            resolveInto(s, local, out);
+        }, BidAnalytics::mergeInto);
+    }
+
+    public Map<Group, Stats> aggregateBids(BidFn bucket, BidValue value) {
+        List<Segment> segs = snapshot();
+        List<long[]> tasks = new ArrayList<>();     // {segment, block}
+        for (int i = 0; i < segs.size(); i++) {
+            for (int k = 0; k < segs.get(i).blocks; k++) tasks.add(new long[]{i, k});
+        }
+        // each worker folds its blocks into one mutable map; the maps are merged in place
+        return IntStream.range(0, tasks.size()).parallel().collect(HashMap::new, (out, t) -> {
+            Segment s = segs.get((int) tasks.get(t)[0]);
+            resolveInto(s, s.scanBlock((int) tasks.get(t)[1], bucket, value), out);
+        }, BidAnalytics::mergeInto);
+    }
+
+    private synchronized List<Segment> snapshot() { return new ArrayList<>(segments); }
+
+    // Category code in the top 16 bits, bucket (48-bit signed) below
+    private static long key(int category, long bucket) {
+        return ((long) category << 48) | (bucket & 0xFFFF_FFFF_FFFFL);
+    }
+
+    // Fold a segment-local result into out; the Stats in local are taken over, not copied
+    private static void resolveInto(Segment s, Map<Long, Stats> local, Map<Group, Stats> out) {
+        for (Map.Entry<Long, Stats> e : local.entrySet()) {
+            long k = e.getKey();
+            long bucket = (k << 16) >> 16;
+            out.merge(new Group(s.dict[(int) (k >>> 48)], bucket), e.getValue(), BidAnalytics::combine);
+        }
+    }
+
+    private static void mergeInto(Map<Group, Stats> into, Map<Group, Stats> from) {
+        for (Map.Entry<Group, Stats> e : from.entrySet()) into.merge(e.getKey(), e.getValue(), BidAnalytics::combine);
+    }
+
+    private static Stats combine(Stats x, Stats y) {
+        x.merge(y);
+        return x;
+    }
+
+    private synchronized void published(Path file) throws IOException {
+        segments.add(new Segment(file));
+    }
+
+    private synchronized Path nextSegmentFile() {
+        return dir.resolve(String.format("segment-%06d.col", nextSegment++));
+    }
+
+    // ---------- WRITER ----------
+    public class Writer implements AutoCloseable {
+        private final Map<String, Integer> dictIndex = new HashMap<>();
+        private final List<String> dict = new ArrayList<>();
+        private final Bytes ids = new Bytes(), created = new Bytes(), ends = new Bytes(),
+                start = new Bytes(), fin = new Bytes(), bidStart = new Bytes(), bidCount = new Bytes(),
+                category = new Bytes(), times = new Bytes(), amounts = new Bytes();
+        private final List<long[]> blockOffsets = new ArrayList<>();   // {timeOffset, amountOffset}
+        private int auctions, bids;
+
+        public void auction(long id, String cat, long createdMs, long endsMs, long startCents, long finalCents,
+                            long[] timesMs, long[] cents, int n) throws IOException {
+            if (bids > 0 && bids + n > SEGMENT_BIDS) flush();
+            Integer code = dictIndex.get(cat);
+            if (code == null) {
+                if (dict.size() == 0xFFFF) throw new IllegalStateException("Too many categories in one segment");
+                code = dict.size();
+                dict.add(cat);
+                dictIndex.put(cat, code);
+            }
+            ids.putLong(id); created.putLong(createdMs); ends.putLong(endsMs);
+            start.putLong(startCents); fin.putLong(finalCents);
+            bidStart.putInt(bids); bidCount.putInt(n); category.putShort(code);
+            long prevT = createdMs, prevC = startCents;
+            for (int i = 0; i < n; i++, bids++) {
+                if (bids % BLOCK == 0) {
+                    blockOffsets.add(new long[]{times.size(), amounts.size()});
+                    prevT = createdMs;
+                    prevC = startCents;
+                }
+                times.putVarLong(zigzag(timesMs[i] - prevT));
+                amounts.putVarLong(zigzag(cents[i] - prevC));
+                prevT = timesMs[i];
+                prevC = cents[i];
+            }
+            auctions++;
+        }
+
+        private void flush() throws IOException {
+            if (auctions == 0) return;
+            Bytes head = new Bytes();
+            head.putInt(MAGIC); head.putInt(FORMAT); head.putInt(auctions); head.putInt(bids);
+            head.putInt(blockOffsets.size()); head.putInt(dict.size());
+            for (String c : dict) {
+                byte[] b = c.getBytes(StandardCharsets.UTF_8);
+                head.putShort(b.length);
+                head.put(b, b.length);
+            }
+            head.align8();
+            long columns = head.size() + ids.size() * 5L + bidStart.size() * 2L + align8(category.size());
+            long timeBase = columns + blockOffsets.size() * 16L;
+            long amountBase = timeBase + times.size();
+            Bytes index = new Bytes();
+            for (long[] o : blockOffsets) index.putLong(timeBase + o[0]);
+            for (long[] o : blockOffsets) index.putLong(amountBase + o[1]);
+            category.align8();
+
+            Path file = nextSegmentFile();
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                for (Bytes b : new Bytes[]{head, ids, created, ends, start, fin, bidStart, bidCount, category, index, times, amounts}) {
+                    b.writeTo(out);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            published(file);
+
+            dictIndex.clear(); dict.clear(); blockOffsets.clear();
+            for (Bytes b : new Bytes[]{ids, created, ends, start, fin, bidStart, bidCount, category, times, amounts}) b.clear();
+            auctions = 0;
+            bids = 0;
+        }
+
+        @Override
+        public void close() throws IOException { flush(); }
+    }
+
+    private static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+    private static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+    private static long align8(long n) { return (n + 7) & ~7L; }
+
+    // Growable little-endian byte array
+    private static final class Bytes {
+        private byte[] data = new byte[1024];
+        private int size;
+
+        int size() { return size; }
+        void clear() { size = 0; }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+        }
+
+        void put(byte[] b, int n) { ensure(n); System.arraycopy(b, 0, data, size, n); size += n; }
+        void putShort(int v) { ensure(2); data[size++] = (byte) v; data[size++] = (byte) (v >> 8); }
+        void putInt(int v) { ensure(4); for (int i = 0; i < 4; i++) data[size++] = (byte) (v >> (8 * i)); }
+        void putLong(long v) { ensure(8); for (int i = 0; i < 8; i++) data[size++] = (byte) (v >> (8 * i)); }
+
+        void putVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                data[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            data[size++] = (byte) v;
+        }
+
+        void align8() { ensure(8); while ((size & 7) != 0) data[size++] = 0; }
+        void writeTo(OutputStream out) throws IOException { out.write(data, 0, size); }
+    }
+
+    // ---------- SEGMENT ----------
+    static final class Segment {
+        final ByteBuffer buf;
+        final int auctions, bids, blocks;
+        final String[] dict;
+        private final int idCol, createdCol, endsCol, startCol, finalCol, bidStartCol, bidCountCol, categoryCol, indexCol;
+
+        Segment(Path file) throws IOException {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer m = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                buf = m.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != FORMAT) throw new IOException("Not a bid segment: " + file);
+            auctions = buf.getInt(8);
+            bids = buf.getInt(12);
+            blocks = buf.getInt(16);
+            dict = new String[buf.getInt(20)];
+            int at = 24;
+            for (int i = 0; i < dict.length; i++) {
+                int len = buf.getShort(at) & 0xFFFF;
+                byte[] b = new byte[len];
+                buf.get(at + 2, b);
+                dict[i] = new String(b, StandardCharsets.UTF_8);
+                at += 2 + len;
+            }
+            idCol = (int) align8(at);
+            createdCol = idCol + 8 * auctions;
+            endsCol = createdCol + 8 * auctions;
+            startCol = endsCol + 8 * auctions;
+            finalCol = startCol + 8 * auctions;
+            bidStartCol = finalCol + 8 * auctions;
+            bidCountCol = bidStartCol + 4 * auctions;
+            categoryCol = bidCountCol + 4 * auctions;
+            indexCol = (int) align8(categoryCol + 2L * auctions);
+        }
+
+        long id(int a) { return buf.getLong(idCol + 8 * a); }
+        long createdMs(int a) { return buf.getLong(createdCol + 8 * a); }
+        long endsMs(int a) { return buf.getLong(endsCol + 8 * a); }
+        long startCents(int a) { return buf.getLong(startCol + 8 * a); }
+        long finalCents(int a) { return buf.getLong(finalCol + 8 * a); }
+        int bidStart(int a) { return buf.getInt(bidStartCol + 4 * a); }
+        int bidCount(int a) { return buf.getInt(bidCountCol + 4 * a); }
+        int category(int a) { return buf.getShort(categoryCol + 2 * a) & 0xFFFF; }
+
+        // Auction owning bid i: last auction whose first bid is <= i and that has bids
+        private int auctionOf(int bid) {
+            int lo = 0, hi = auctions - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (bidStart(mid) <= bid) lo = mid; else hi = mid - 1;
+            }
+            while (bidCount(lo) == 0 || bidStart(lo) + bidCount(lo) <= bid) lo++;
+            return lo;
+        }
+
+        Map<Long, Stats> scanBlock(int block, BidFn bucket, BidValue value) {
+            Map<Long, Stats> local = new HashMap<>();
+            int first = block * BLOCK, last = Math.min(bids, first + BLOCK);
+            int t = (int) buf.getLong(indexCol + 8 * block);
+            int c = (int) buf.getLong(indexCol + 8 * (blocks + block));
+            int a = auctionOf(first);
+            int auctionEnd = bidStart(a) + bidCount(a);
+            long prevT = createdMs(a), prevC = startCents(a);
+            long cachedKey = Long.MIN_VALUE;
+            Stats cached = null;
+            for (int i = first; i < last; i++) {
+                while (i >= auctionEnd) {
+                    a++;
+                    auctionEnd = bidStart(a) + bidCount(a);
+                    prevT = createdMs(a);
+                    prevC = startCents(a);
+                }
+                long v = 0;
+                int shift = 0;
+                byte b;
+                do { b = buf.get(t++); v |= (long) (b & 0x7F) << shift; shift += 7; } while (b < 0);
+                long time = prevT + unzigzag(v);
+                v = 0;
+                shift = 0;
+                do { b = buf.get(c++); v |= (long) (b & 0x7F) << shift; shift += 7; } while (b < 0);
+                long cents = prevC + unzigzag(v);
+                prevT = time;
+                prevC = cents;
+
+                long k = key(category(a), bucket.apply(this, a, time, cents));
+                if (k != cachedKey) {
+                    cached = local.computeIfAbsent(k, x -> new Stats());
+                    cachedKey = k;
+                }
+                cached.add(value.apply(this, a, time, cents));
+            }
+            return local;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+// Fixed-size log-linear latency histogram in nanoseconds: 8 sub-buckets per power
+// of two, so any recorded value is reported within 12.5%. Recording is a couple of
+// arithmetic ops and an array increment with no allocation. Not thread-safe: keep one
+// per thread and merge().
+public class LatencyHistogram {
+    private static final int SUB = 8;
+    private final long[] counts = new long[64 * SUB];
+    private long count;
+    private long total;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[bucket(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    public void merge(LatencyHistogram o) {
+        for (int i = 0; i < counts.length; i++) counts[i] += o.counts[i];
+        count += o.count;
+        total += o.total;
+        max = Math.max(max, o.max);
+    }
+
+    public long getCount() { return count; }
+    public long getMaxNanos() { return max; }
+    public double getMeanNanos() { return count == 0 ? 0 : (double) total / count; }
+
+    // Upper bound of the bucket holding the p-th percentile (0 < p <= 100)
+    public long percentileNanos(double p) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(count * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, upperBound(i));
+        }
+        return max;
+    }
+
+    // "n=.. mean=.. p50=.. p99=.. p99.9=.. max=.." in microseconds
+    public String summary() {
+        return String.format("n=%d mean=%.2fus p50=%.2fus p99=%.2fus p99.9=%.2fus max=%.2fus",
+                count, getMeanNanos() / 1e3, percentileNanos(50) / 1e3, percentileNanos(99) / 1e3,
+                percentileNanos(99.9) / 1e3, max / 1e3);
+    }
+
+    private static int bucket(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);          // >= 3
+        int sub = (int) (v >>> (exp - 3)) & (SUB - 1);
+        return (exp - 2) * SUB + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB) return bucket;
+        int exp = bucket / SUB + 2;
+        long sub = bucket % SUB;
+        return ((SUB + sub + 1) << (exp - 3)) - 1;
+    }
+}
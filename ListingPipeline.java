@@ -0,0 +1,275 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Staged, asynchronous auction creation for bulk sellers and the dashboard.
+//
+// A listing passes through three stages, each on its own bounded executor:
+//   validate  - parse the raw form fields and check them
+//   dedup     - reject a listing whose owner already has an open or pending auction
+//               with the same normalised title
+//   index     - create the auction; AuctionService publishes it to its map last, so it
+//               shows up in every view at once
+// A full stage queue runs the task on the submitting thread, which slows the stage
+// upstream, or the producer, instead of buffering without bound. Once the pipeline is
+// closed a rejected task fails its listing's future rather than being dropped.
+// Claims on auctions that have closed are swept out as the claim map grows, so it
+// stays in proportion to the open listings. Each stage counts completions and busy
+// time for throughput reporting.
+public class ListingPipeline implements AutoCloseable {
+
+    public static final int MAX_TITLE = 200;
+    public static final int MAX_DESCRIPTION = 4000;
+    public static final long MAX_DURATION_SEC = 30L * 24 * 3600;
+    private static final int MIN_SWEEP = 1024;
+
+    // Raw seller input, as typed into a form or read from an upload
+    public static class Listing {
+        private final OnlineAuctionSystem.User owner;
+        private final String title;
+        private final String description;
+        private final String category;
+        private final String startingPrice;
+        private final String durationSec;
+
+        public Listing(OnlineAuctionSystem.User owner, String title, String description, String category,
+                       String startingPrice, String durationSec) {
+            this.owner = owner;
+            this.title = title;
+            this.description = description;
+            this.category = category;
+            this.startingPrice = startingPrice;
+            this.durationSec = durationSec;
+        }
+
+        public OnlineAuctionSystem.User getOwner() { return owner; }
+        public String getTitle() { return title; }
+    }
+
+    // Parsed and validated listing on its way to the index stage
+    private static final class Validated {
+        final OnlineAuctionSystem.User owner;
+        final String title, description, category;
+        final double start;
+        final long durationSec;
+        final Key key;
+        Claim claim;
+
+        Validated(OnlineAuctionSystem.User owner, String title, String description, String category, double start, long durationSec) {
+            this.owner = owner;
+            this.title = title;
+            this.description = description;
+            this.category = category;
+            this.start = start;
+            this.durationSec = durationSec;
+            this.key = new Key(owner.getId(), title.toLowerCase(Locale.ROOT).replaceAll("\\s+", " "));
+        }
+    }
+
+    private static final class Key {
+        final long ownerId;
+        final String title;
+        Key(long ownerId, String title) { this.ownerId = ownerId; this.title = title; }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof Key k && k.ownerId == ownerId && k.title.equals(title);
+        }
+        @Override public int hashCode() { return Long.hashCode(ownerId) * 31 + title.hashCode(); }
+    }
+
+    // Reservation of a key; auctionId is 0 while the listing is still being indexed
+    private static final class Claim {
+        volatile long auctionId;
+    }
+
+    // ---------- STAGE ----------
+    private static final class Stage {
+        final String name;
+        final ThreadPoolExecutor pool;
+        final AtomicLong done = new AtomicLong();
+        final AtomicLong busyNanos = new AtomicLong();
+
+        Stage(String name, int threads, int capacity) {
+            this.name = name;
+            AtomicInteger n = new AtomicInteger();
+            this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity), r -> {
+                Thread t = new Thread(r, "listing-" + name + "-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, (r, pool) -> {
+                // caller runs while the stage is up; after shutdown let execute() fail the listing
+                if (pool.isShutdown()) throw new RejectedExecutionException("Stage " + name + " is shut down");
+                r.run();
+            });
+        }
+
+        // False, with result failed, if the stage has been shut down
+        boolean execute(Runnable task, CompletableFuture<?> result) {
+            try {
+                pool.execute(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        task.run();
+                    } finally {
+                        busyNanos.addAndGet(System.nanoTime() - t0);
+                        done.incrementAndGet();
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException ex) {
+                result.completeExceptionally(new IllegalStateException("Pipeline is closed", ex));
+                return false;
+            }
+        }
+    }
+
+    private final OnlineAuctionSystem.AuctionService service;
+    private final Stage validate, dedup, index;
+    private final Map<Key, Claim> claims = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile int sweepAt = MIN_SWEEP;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private volatile long startedAt;
+    private volatile boolean closed;
+
+    public ListingPipeline(OnlineAuctionSystem.AuctionService service, int validateThreads, int dedupThreads,
+                           int indexThreads, int queueCapacity) {
+        this.service = service;
+        this.validate = new Stage("validate", validateThreads, queueCapacity);
+        this.dedup = new Stage("dedup", dedupThreads, queueCapacity);
+        this.index = new Stage("index", indexThreads, queueCapacity);
+    }
+
+    // Completes with the published auction, or exceptionally with IllegalArgumentException
+    // for invalid input or IllegalStateException for a duplicate listing
+    public CompletableFuture<OnlineAuctionSystem.Auction> submit(Listing listing) {
+        if (closed) throw new IllegalStateException("Pipeline is closed");
+        if (submitted.getAndIncrement() == 0) startedAt = System.nanoTime();
+        CompletableFuture<OnlineAuctionSystem.Auction> result = new CompletableFuture<>();
+        validate.execute(() -> {
+            Validated v;
+            try {
+                v = validated(listing);
+            } catch (RuntimeException ex) {
+                invalid.incrementAndGet();
+                result.completeExceptionally(ex);
+                return;
+            }
+            dedup.execute(() -> {
+                v.claim = claim(v.key);
+                if (v.claim == null) {
+                    duplicates.incrementAndGet();
+                    result.completeExceptionally(new IllegalStateException("Duplicate listing: " + v.title));
+                    return;
+                }
+                if (!index.execute(() -> publish(v, result), result)) claims.remove(v.key, v.claim);
+            }, result);
+        }, result);
+        return result;
+    }
+
+    private Validated validated(Listing l) {
+        if (l.owner == null || service.getUserById(l.owner.getId()) != l.owner) {
+            throw new IllegalArgumentException("Unknown seller");
+        }
+        String title = l.title == null ? "" : l.title.trim();
+        if (title.isEmpty() || title.length() > MAX_TITLE) throw new IllegalArgumentException("Title must be 1-" + MAX_TITLE + " characters");
+        String desc = l.description == null ? "" : l.description.trim();
+        if (desc.length() > MAX_DESCRIPTION) throw new IllegalArgumentException("Description is longer than " + MAX_DESCRIPTION + " characters");
+        String category = l.category == null || l.category.isBlank() ? OnlineAuctionSystem.Auction.DEFAULT_CATEGORY : l.category.trim();
+        double start;
+        long duration;
+        try {
+            start = Double.parseDouble(l.startingPrice.trim());
+            duration = Long.parseLong(l.durationSec.trim());
+        } catch (NumberFormatException | NullPointerException ex) {
+            throw new IllegalArgumentException("Starting price and duration must be numbers");
+        }
+        if (!Double.isFinite(start) || start < 0) throw new IllegalArgumentException("Starting price must be zero or more");
+        if (duration <= 0 || duration > MAX_DURATION_SEC) throw new IllegalArgumentException("Duration must be 1-" + MAX_DURATION_SEC + " seconds");
+        return new Validated(l.owner, title, desc, category, start, duration);
+    }
+
+    // Reserve the key unless an open or still-pending auction holds it
+    private Claim claim(Key key) {
+        Claim mine = new Claim();
+        while (true) {
+            Claim prev = claims.putIfAbsent(key, mine);
+            if (prev == null) return mine;
+            long id = prev.auctionId;
+            if (id == 0) return null;
+            OnlineAuctionSystem.Auction a = service.getAuction(id);
+            if (a != null && !a.isClosed()) return null;
+            if (claims.replace(key, prev, mine)) return mine;
+        }
+    }
+
+    private void publish(Validated v, CompletableFuture<OnlineAuctionSystem.Auction> result) {
+        try {
+            OnlineAuctionSystem.Auction a = service.createAuction(v.title, v.description, v.category, v.start, v.durationSec, v.owner);
+            v.claim.auctionId = a.getId();
+            accepted.incrementAndGet();
+            result.complete(a);
+            if (claims.size() >= sweepAt) sweep();
+        } catch (RuntimeException ex) {
+            claims.remove(v.key, v.claim);
+            result.completeExceptionally(ex);
+        }
+    }
+
+    // Drop claims whose auction has closed or gone; the next sweep waits until the map
+    // has doubled again, so the cost stays amortised over the listings that grew it
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) return;
+        try {
+            for (Map.Entry<Key, Claim> e : claims.entrySet()) {
+                long id = e.getValue().auctionId;
+                if (id == 0) continue;
+                OnlineAuctionSystem.Auction a = service.getAuction(id);
+                if (a == null || a.isClosed()) claims.remove(e.getKey(), e.getValue());
+            }
+            sweepAt = Math.max(MIN_SWEEP, claims.size() * 2);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    public long getAccepted() { return accepted.get(); }
+    public long getInvalid() { return invalid.get(); }
+    public long getDuplicates() { return duplicates.get(); }
+
+    // "submitted=.. accepted=.. invalid=.. duplicate=.." then one line per stage with its
+    // completions, throughput since the first submission and busy share of its threads
+    public String metrics() {
+        double secs = startedAt == 0 ? 0 : (System.nanoTime() - startedAt) / 1e9;
+        StringBuilder sb = new StringBuilder(String.format("submitted=%d accepted=%d invalid=%d duplicate=%d",
+                submitted.get(), accepted.get(), invalid.get(), duplicates.get()));
+        for (Stage s : new Stage[]{validate, dedup, index}) {
+            long n = s.done.get();
+            sb.append(String.format("%n  %-8s n=%d %.0f/s busy=%.0fms (%.2f us/listing)", s.name, n,
+                    secs == 0 ? 0 : n / secs, s.busyNanos.get() / 1e6, n == 0 ? 0 : s.busyNanos.get() / 1e3 / n));
+        }
+        return sb.toString();
+    }
+
+    // Stop accepting listings and wait for those in flight; an interrupt stops the wait
+    // and is passed on to the caller
+    @Override
+    public void close() {
+        closed = true;
+        for (Stage s : new Stage[]{validate, dedup, index}) {
+            s.pool.shutdown();
+            try {
+                s.pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
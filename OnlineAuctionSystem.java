@@ -1,13 +1,22 @@
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class OnlineAuctionSystem {
 
     // ---------- USER CLASS ----------
     static class User {
-        private static long NEXT = 1;
+        private static final AtomicLong NEXT = new AtomicLong(1);
         private final long id;
         private final String username;
         private final String password;
@@ -15,7 +24,7 @@ public class OnlineAuctionSystem {
         private String displayName = null;
 
         public User(String username, String password) {
-            this.id = NEXT++;
+            this.id = NEXT.getAndIncrement();
             this.username = username;
             this.password = password;
         }
@@ -50,10 +59,10 @@ public class OnlineAuctionSystem {
         private final double amount;
         private final Instant time;
 
-        public Bid(User bidder, double amount) {
+        public Bid(User bidder, double amount, Instant time) {
             this.bidder = bidder;
             this.amount = amount;
-            this.time = Instant.now();
+            this.time = time;
         }
 
         public User getBidder() { return bidder; }
@@ -66,56 +75,245 @@ public class OnlineAuctionSystem {
         }
     }
 
+    // ---------- BID REQUEST CLASS ----------
+    // One entry of a batch submission: a bid amount for an auction
+    static class BidRequest {
+        private final long auctionId;
+        private final double amount;
+
+        public BidRequest(long auctionId, double amount) {
+            this.auctionId = auctionId;
+            this.amount = amount;
+        }
+
+        public long getAuctionId() { return auctionId; }
+        public double getAmount() { return amount; }
+    }
+
+    // ---------- AUCTION TYPE ----------
+    // ENGLISH: open ascending bids, highest wins at close (with soft close)
+    // SEALED_FIRST_PRICE / VICKREY: hidden bids revealed at close; the winner pays their own
+    //   bid, or for Vickrey the second-highest bid (the starting price if unopposed)
+    // DUTCH: the price steps down from the starting price to a floor; the first taker wins
+    enum AuctionType {
+        ENGLISH, SEALED_FIRST_PRICE, VICKREY, DUTCH;
+
+        public boolean isSealed() { return this == SEALED_FIRST_PRICE || this == VICKREY; }
+    }
+
     // ---------- AUCTION CLASS ----------
+    // Immutable snapshot: every mutation publishes a new Auction with a higher version,
+    // so readers always see a consistent view without locking.
     static class Auction {
-        private static long NEXT = 1;
+        static final String DEFAULT_CATEGORY = "General";
+        private static final AtomicLong NEXT = new AtomicLong(1);
         private final long id;
+        private final long version;
         private final String title;
         private final String description;
+        private final String category;
         private final double startingPrice;
         private final User owner;
         private final Instant createdAt;
         private final Instant endsAt;
-        private boolean closed = false;
-        private final List<Bid> bids = new ArrayList<>();
+        private final boolean closed;
+        private final BidNode bids;   // newest first, shared between snapshots
+        private final int bidCount;
+        private final Clock clock;
+        private final AuctionType type;
+        private final double floorPrice;      // DUTCH only
+        private final long dropIntervalSec;   // DUTCH only
+
+        // Persistent singly-linked bid history; appending a bid never copies older nodes
+        private static final class BidNode {
+            final Bid bid;
+            final BidNode prev;
+            BidNode(Bid bid, BidNode prev) { this.bid = bid; this.prev = prev; }
+        }
 
         public Auction(String title, String description, double startingPrice, Instant endsAt, User owner) {
-            this.id = NEXT++;
+            this(title, description, DEFAULT_CATEGORY, startingPrice, endsAt, owner);
+        }
+
+        public Auction(String title, String description, String category, double startingPrice, Instant endsAt, User owner) {
+            this(title, description, category, startingPrice, endsAt, owner, Clock.systemUTC());
+        }
+
+        // clock drives createdAt and time-based closing
+        public Auction(String title, String description, String category, double startingPrice, Instant endsAt, User owner, Clock clock) {
+            this(title, description, category, startingPrice, endsAt, owner, clock, AuctionType.ENGLISH, startingPrice, 1);
+        }
+
+        // For DUTCH the price falls in equal steps every dropIntervalSec, from startingPrice
+        // at creation to floorPrice at endsAt; the other types ignore both
+        public Auction(String title, String description, String category, double startingPrice, Instant endsAt, User owner,
+                       Clock clock, AuctionType type, double floorPrice, long dropIntervalSec) {
+            this.id = NEXT.getAndIncrement();
+            this.clock = clock;
+            this.type = type;
+            this.floorPrice = floorPrice;
+            this.dropIntervalSec = dropIntervalSec;
+            this.version = 1;
             this.title = title;
             this.description = description;
+            this.category = category;
             this.startingPrice = startingPrice;
             this.owner = owner;
-            this.createdAt = Instant.now();
+            this.createdAt = clock.instant();
             this.endsAt = endsAt;
+            this.closed = false;
+            this.bids = null;
+            this.bidCount = 0;
+        }
+
+        // Rebuild a closed snapshot as archived, e.g. when paging it back in from the cold tier
+        Auction(long id, long version, String title, String description, String category, double startingPrice,
+                User owner, Instant createdAt, Instant endsAt, List<Bid> history, Clock clock,
+                AuctionType type, double floorPrice, long dropIntervalSec) {
+            this.id = id;
+            this.clock = clock;
+            this.type = type;
+            this.floorPrice = floorPrice;
+            this.dropIntervalSec = dropIntervalSec;
+            this.version = version;
+            this.title = title;
+            this.description = description;
+            this.category = category;
+            this.startingPrice = startingPrice;
+            this.owner = owner;
+            this.createdAt = createdAt;
+            this.endsAt = endsAt;
+            this.closed = true;
+            BidNode head = null;
+            for (Bid b : history) head = new BidNode(b, head);
+            this.bids = head;
+            this.bidCount = history.size();
+        }
+
+        private Auction(Auction base, Instant endsAt, BidNode bids, int bidCount, boolean closed) {
+            this.id = base.id;
+            this.clock = base.clock;
+            this.type = base.type;
+            this.floorPrice = base.floorPrice;
+            this.dropIntervalSec = base.dropIntervalSec;
+            this.version = base.version + 1;
+            this.title = base.title;
+            this.description = base.description;
+            this.category = base.category;
+            this.startingPrice = base.startingPrice;
+            this.owner = base.owner;
+            this.createdAt = base.createdAt;
+            this.endsAt = endsAt;
+            this.closed = closed;
+            this.bids = bids;
+            this.bidCount = bidCount;
         }
 
         public long getId() { return id; }
+        public long getVersion() { return version; }
         public String getTitle() { return title; }
+        public String getDescription() { return description; }
+        public String getCategory() { return category; }
+        public AuctionType getType() { return type; }
+        public double getFloorPrice() { return floorPrice; }
+        public long getDropIntervalSec() { return dropIntervalSec; }
+        public double getStartingPrice() { return startingPrice; }
+        public Instant getCreatedAt() { return createdAt; }
         public User getOwner() { return owner; }
         public Instant getEndsAt() { return endsAt; }
-        public boolean isClosed() { return closed || Instant.now().isAfter(endsAt); }
-        public void setClosed(boolean c) { closed = c; }
+        public boolean isClosed() { return isClosed(clock.instant()); }
+        public boolean isClosed(Instant now) { return closed || now.isAfter(endsAt); }
 
+        // Price of the leading (or winning) bid; for an untaken DUTCH auction the asking price now
         public double getCurrentPrice() {
-            if (bids.isEmpty()) return startingPrice;
-            return bids.get(bids.size() - 1).getAmount();
+            if (bids == null) return type == AuctionType.DUTCH ? askingPrice(clock.instant()) : startingPrice;
+            return bids.bid.getAmount();
+        }
+
+        // DUTCH asking price at time t, clamped to the schedule
+        public double askingPrice(Instant t) {
+            long steps = Math.max(1, Duration.between(createdAt, endsAt).getSeconds() / dropIntervalSec);
+            long k = Math.min(steps, Math.max(0, Duration.between(createdAt, t).getSeconds() / dropIntervalSec));
+            return startingPrice - (startingPrice - floorPrice) * k / steps;
         }
 
         // Return the highest (most recent) bidder, or null if none
         public User getHighestBidder() {
-            if (bids.isEmpty()) return null;
-            return bids.get(bids.size() - 1).getBidder();
+            if (bids == null) return null;
+            return bids.bid.getBidder();
         }
 
         // Number of bids placed on this auction
-        public int getBidCount() { return bids.size(); }
+        public int getBidCount() { return bidCount; }
 
-        public boolean placeBid(Bid b) {
-            if (isClosed()) return false;
-            double current = getCurrentPrice();
-            if (b.getAmount() <= current) return false;
-            bids.add(b);
-            return true;
+        // Most recent accepted bid, or null if none
+        public Bid getLastBid() { return bids == null ? null : bids.bid; }
+
+        // Bids in the order they were placed
+        public List<Bid> getBids() {
+            Bid[] out = new Bid[bidCount];
+            int i = bidCount;
+            for (BidNode n = bids; n != null; n = n.prev) out[--i] = n.bid;
+            return Arrays.asList(out);
+        }
+
+        // Next snapshot with the bid applied, or null if the bid is not acceptable.
+        // Soft close: a bid placed within softCloseSec of the end pushes the end out to
+        // extendSec after the bid, so sniping in the final second always leaves time to respond.
+        public Auction withBid(Bid b, long softCloseSec, long extendSec) {
+            boolean[] ok = new boolean[1];
+            return withBids(new Bid[]{b}, ok, softCloseSec, extendSec);
+        }
+
+        // Apply bids in order as if placed one by one, but publish a single snapshot.
+        // accepted[i] reports each bid; returns null if none was accepted.
+        public Auction withBids(Bid[] batch, boolean[] accepted, long softCloseSec, long extendSec) {
+            if (closed || type.isSealed()) return null;
+            if (type == AuctionType.DUTCH) return withTake(batch, accepted);
+            Instant ends = endsAt;
+            BidNode head = bids;
+            double price = getCurrentPrice();
+            int n = 0;
+            for (int i = 0; i < batch.length; i++) {
+                Bid b = batch[i];
+                accepted[i] = !b.getTime().isAfter(ends) && b.getAmount() > price;
+                if (!accepted[i]) continue;
+                if (softCloseSec > 0 && !b.getTime().isBefore(ends.minusSeconds(softCloseSec))) {
+                    Instant extended = b.getTime().plusSeconds(extendSec);
+                    if (extended.isAfter(ends)) ends = extended;
+                }
+                head = new BidNode(b, head);
+                price = b.getAmount();
+                n++;
+            }
+            if (n == 0) return null;
+            return new Auction(this, ends, head, bidCount + n, false);
+        }
+
+        // DUTCH: the first bid meeting the asking price takes the lot at that price and closes
+        // the auction in the same snapshot, so a single CAS decides the winner
+        private Auction withTake(Bid[] batch, boolean[] accepted) {
+            Auction next = null;
+            for (int i = 0; i < batch.length; i++) {
+                Bid b = batch[i];
+                double ask = askingPrice(b.getTime());
+                accepted[i] = next == null && bids == null && !b.getTime().isAfter(endsAt) && b.getAmount() >= ask;
+                if (accepted[i]) next = new Auction(this, endsAt, new BidNode(new Bid(b.getBidder(), ask, b.getTime()), null), 1, true);
+            }
+            return next;
+        }
+
+        // Sealed auctions: closed snapshot carrying the revealed result as its only bid
+        // (winner, price paid, time of the winning bid); result null if there were no bids
+        public Auction withResult(Bid result) {
+            if (closed) return null;
+            return new Auction(this, endsAt, result == null ? null : new BidNode(result, null), result == null ? 0 : 1, true);
+        }
+
+        // Next snapshot marked closed, or null if already closed
+        public Auction withClosed() {
+            if (closed) return null;
+            return new Auction(this, endsAt, bids, bidCount, true);
         }
 
         public String fullString() {
@@ -123,13 +321,20 @@ public class OnlineAuctionSystem {
             sb.append("Auction ID: ").append(id).append("\n");
             sb.append("Title: ").append(title).append("\n");
             sb.append("Description: ").append(description).append("\n");
+            sb.append("Category: ").append(category).append("\n");
+            sb.append("Type: ").append(type).append("\n");
             sb.append("Owner: ").append(owner.getUsername()).append("\n");
             sb.append("Starting price: ").append(String.format("%.2f", startingPrice)).append("\n");
             sb.append("Current price: ").append(String.format("%.2f", getCurrentPrice())).append("\n");
             sb.append("Ends at: ").append(endsAt).append("\n");
             sb.append("Status: ").append(isClosed() ? "CLOSED" : "OPEN").append("\n");
-            sb.append("Bids:\n");
-            for (Bid bid : bids) sb.append("  - ").append(bid).append("\n");
+            if (type == AuctionType.DUTCH) sb.append("Floor price: ").append(String.format("%.2f", floorPrice)).append("\n");
+            if (type.isSealed() && !closed) {
+                sb.append("Bids: sealed until close\n");
+            } else {
+                sb.append(type.isSealed() ? "Result:\n" : "Bids:\n");
+                for (Bid bid : getBids()) sb.append("  - ").append(bid).append("\n");
+            }
             return sb.toString();
         }
     }
@@ -138,11 +343,84 @@ public class OnlineAuctionSystem {
     static class AuctionService {
         private final Map<Long, Auction> auctions = new ConcurrentHashMap<>();
         private final Map<String, User> users = new ConcurrentHashMap<>();
+        private final Map<Long, User> usersById = new ConcurrentHashMap<>();
+        private final Clock clock;
+        private final Random random;
+        // Open auctions ordered by deadline; soft-close extensions add a fresh entry and the
+        // superseded one is discarded when it comes due, so nothing is ever rescanned
+        private final NavigableSet<Deadline> deadlines = new ConcurrentSkipListSet<>();
+        // Ids closed since the last drainClosed(), for the analytics archive
+        private final Queue<Long> recentlyClosed = new ConcurrentLinkedQueue<>();
+        private volatile long softCloseSec = 60;
+        private volatile long extendSec = 60;
+        private final Executor bidExecutor = ForkJoinPool.commonPool();
+        private final AuctionRankings rankings;
+        private volatile boolean rankingsEnabled = true;
+        private final UserActivityIndex activity = new UserActivityIndex(auctions::get);
+        private final OutbidNotifier notifier = new OutbidNotifier(10_000, Duration.ofSeconds(2), 256);
+        // Optional disk tier: auctions closed longer than hotRetention move out of the map
+        private volatile AuctionColdStore cold;
+        private volatile Duration hotRetention;
+        private final Queue<Deadline> closedOrder = new ConcurrentLinkedQueue<>();
+        // Hidden bids of open sealed auctions, kept outside the snapshots until close
+        private final Map<Long, SealedBook> sealed = new ConcurrentHashMap<>();
+        private final List<UpdateListener> updateListeners = new CopyOnWriteArrayList<>();
+
+        // Sees every published snapshot that changes an auction's public state: accepted
+        // bids (and the extensions they cause), Dutch takes, closes and expiry, whichever
+        // path made them. Called on the publishing thread, so it must hand off and return.
+        @FunctionalInterface
+        public interface UpdateListener {
+            void updated(Auction a);
+        }
+
+        public AuctionService() {
+            this(Clock.systemUTC(), new Random());
+        }
+
+        // All time-driven behaviour reads clock and all service-side randomness comes from
+        // random, so a fixed clock/seed (or a simulated clock) makes runs reproducible
+        public AuctionService(Clock clock, Random random) {
+            this.clock = clock;
+            this.random = random;
+            this.rankings = new AuctionRankings(100, Duration.ofMinutes(5), clock, auctions::get);
+        }
+
+        public Clock getClock() { return clock; }
+        public Random getRandom() { return random; }
+
+        private static final class Deadline implements Comparable<Deadline> {
+            final Instant at;
+            final long auctionId;
+            Deadline(Instant at, long auctionId) { this.at = at; this.auctionId = auctionId; }
+
+            @Override
+            public int compareTo(Deadline o) {
+                int c = at.compareTo(o.at);
+                return c != 0 ? c : Long.compare(auctionId, o.auctionId);
+            }
+        }
+
+        // Bids within windowSec of the end extend it to extendSec after the bid (0 disables)
+        public void setSoftClose(long windowSec, long extendSec) {
+            this.softCloseSec = windowSec;
+            this.extendSec = extendSec;
+        }
+
+        // Move auctions closed for longer than hotRetention to a disk tier under dir, keeping
+        // up to cacheBids bids' worth of paged-in auctions cached. Reads stay transparent.
+        public void enableColdTier(java.nio.file.Path dir, Duration hotRetention, long cacheBids) throws java.io.IOException {
+            this.hotRetention = hotRetention;
+            this.cold = new AuctionColdStore(dir, cacheBids, this::getUserById, clock);
+        }
+
+        public AuctionColdStore getColdStore() { return cold; }
 
         // User methods
         public User registerUser(String username, String password) {
             User u = new User(username, password);
             users.put(username, u);
+            usersById.put(u.getId(), u);
             return u;
         }
         public User login(String username, String password) {
@@ -151,24 +429,294 @@ public class OnlineAuctionSystem {
             return u.checkPassword(password) ? u : null;
         }
         public User getUserByName(String username) { return users.get(username); }
+        public User getUserById(long id) { return usersById.get(id); }
 
         // Auction methods
         public Auction createAuction(String title, String desc, double start, long durationSec, User owner) {
-            // End times vary per auction: random future date starting from tomorrow
-            java.util.Random rnd = new java.util.Random();
-            long daysAhead = 1 + rnd.nextInt(30); // between 1 and 30 days from now
-            long extraSecondsInDay = rnd.nextInt(24 * 60 * 60); // random time within the chosen day
-            Instant ends = Instant.now().plusSeconds(daysAhead * 24L * 60L * 60L + extraSecondsInDay);
-            Auction a = new Auction(title, desc, start, ends, owner);
+            return createAuction(title, desc, Auction.DEFAULT_CATEGORY, start, durationSec, owner);
+        }
+
+        public Auction createAuction(String title, String desc, String category, double start, long durationSec, User owner) {
+            return createAuction(title, desc, category, start, durationSec, owner, AuctionType.ENGLISH);
+        }
+
+        public Auction createAuction(String title, String desc, String category, double start, long durationSec, User owner,
+                                     AuctionType type) {
+            if (type == AuctionType.DUTCH) throw new IllegalArgumentException("Use createDutchAuction for DUTCH");
+            return publish(title, desc, category, start, durationSec, owner, type, start, 1);
+        }
+
+        // Price falls from start to floor in equal steps every dropIntervalSec over durationSec
+        public Auction createDutchAuction(String title, String desc, String category, double start, double floor,
+                                          long dropIntervalSec, long durationSec, User owner) {
+            if (floor < 0 || floor > start) throw new IllegalArgumentException("Floor must be between 0 and the starting price");
+            if (dropIntervalSec <= 0 || dropIntervalSec > durationSec) throw new IllegalArgumentException("Drop interval must be within the duration");
+            return publish(title, desc, category, start, durationSec, owner, AuctionType.DUTCH, floor, dropIntervalSec);
+        }
+
+        private Auction publish(String title, String desc, String category, double start, long durationSec, User owner,
+                                AuctionType type, double floor, long dropIntervalSec) {
+            if (durationSec <= 0) throw new IllegalArgumentException("Duration must be positive");
+            Instant ends = clock.instant().plusSeconds(durationSec);
+            Auction a = new Auction(title, desc, category, start, ends, owner, clock, type, floor, dropIntervalSec);
+            // Secondary indexes first and the map last: index readers resolve ids through the
+            // map, so the auction appears everywhere at the moment it is published
+            if (type.isSealed()) sealed.put(a.getId(), new SealedBook());
+            activity.onCreate(a);
             auctions.put(a.getId(), a);
+            deadlines.add(new Deadline(ends, a.getId()));
             return a;
         }
 
+        // ENGLISH: must beat the current price. DUTCH: takes the lot if amount meets the asking
+        // price. Sealed: one hidden bid per bidder, at least the starting price.
         public boolean placeBid(long auctionId, User bidder, double amount) {
+            Bid b = new Bid(bidder, amount, clock.instant());
+            SealedBook book = sealed.get(auctionId);
+            if (book != null) return placeSealed(auctionId, book, b);
+            long window = softCloseSec, extend = extendSec;
+            Auction[] base = new Auction[1];
+            Auction after = update(auctionId, a -> { base[0] = a; return a.withBid(b, window, extend); });
+            if (after == null) return false;
+            bidsPublished(base[0], after);
+            if (after.getType() == AuctionType.DUTCH) closed(after);
+            return true;
+        }
+
+        private boolean placeSealed(long auctionId, SealedBook book, Bid b) {
             Auction a = auctions.get(auctionId);
-            if (a == null) return false;
-            Bid b = new Bid(bidder, amount);
-            return a.placeBid(b);
+            if (a == null || a.isClosed(b.getTime()) || b.getAmount() < a.getStartingPrice()) return false;
+            if (!book.add(b)) return false;
+            activity.onBid(auctionId, b.getBidder());
+            return true;
+        }
+
+        // Number of hidden bids on an open sealed auction (0 once resolved)
+        public int getSealedBidCount(long auctionId) {
+            SealedBook book = sealed.get(auctionId);
+            return book == null ? 0 : book.size();
+        }
+
+        // Max-heap of sealed bids, highest amount first and the earlier bid on ties. Resolution
+        // pops the winner and peeks the runner-up, O(log n), once; later calls return the result.
+        private static final class SealedBook {
+            // Highest amount, then earliest time; bids sharing an Instant (a coarse or virtual
+            // clock, or one placeBids call) fall back to the order they reached the book
+            private static final Comparator<Entry> ORDER = Comparator.comparingDouble((Entry e) -> e.bid.getAmount()).reversed()
+                    .thenComparing(e -> e.bid.getTime())
+                    .thenComparingLong(e -> e.seq);
+
+            private static final class Entry {
+                final Bid bid;
+                final long seq;
+                Entry(Bid bid, long seq) { this.bid = bid; this.seq = seq; }
+            }
+
+            private final PriorityQueue<Entry> heap = new PriorityQueue<>(ORDER);
+            private final Set<Long> bidders = new HashSet<>();
+            private long arrivals;
+            private boolean resolved;
+            private Bid result;
+
+            synchronized boolean add(Bid b) {
+                if (resolved || !bidders.add(b.getBidder().getId())) return false;
+                heap.add(new Entry(b, arrivals++));
+                return true;
+            }
+
+            synchronized int size() { return heap.size(); }
+
+            synchronized Bid resolve(Auction a) {
+                if (!resolved) {
+                    resolved = true;
+                    Entry topEntry = heap.poll();
+                    if (topEntry != null) {
+                        Bid top = topEntry.bid;
+                        Bid second = heap.isEmpty() ? null : heap.peek().bid;
+                        double price = a.getType() == AuctionType.VICKREY
+                                ? (second != null ? second.getAmount() : a.getStartingPrice()) : top.getAmount();
+                        result = new Bid(top.getBidder(), price, top.getTime());
+                    }
+                }
+                return result;
+            }
+        }
+
+        // Batch submission: entries are grouped by auction and each group is folded into one
+        // new snapshot published with a single CAS. Results are positional, true if accepted.
+        public List<Boolean> placeBids(User bidder, List<BidRequest> batch) {
+            Boolean[] out = new Boolean[batch.size()];
+            Instant now = clock.instant();
+            for (int[] idxs : groupByAuction(batch)) {
+                boolean[] ok = applyGroup(bidder, batch, idxs, now);
+                for (int j = 0; j < idxs.length; j++) out[idxs[j]] = ok[j];
+            }
+            return Arrays.asList(out);
+        }
+
+        // Pipelined form of placeBids: auction groups are applied in parallel on the bid executor
+        // and each entry's future completes as soon as its group has been published
+        public List<CompletableFuture<Boolean>> submitBids(User bidder, List<BidRequest> batch) {
+            List<CompletableFuture<Boolean>> acks = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) acks.add(new CompletableFuture<>());
+            Instant now = clock.instant();
+            for (int[] idxs : groupByAuction(batch)) {
+                bidExecutor.execute(() -> {
+                    try {
+                        boolean[] ok = applyGroup(bidder, batch, idxs, now);
+                        for (int j = 0; j < idxs.length; j++) acks.get(idxs[j]).complete(ok[j]);
+                    } catch (RuntimeException ex) {
+                        for (int idx : idxs) acks.get(idx).completeExceptionally(ex);
+                    }
+                });
+            }
+            return acks;
+        }
+
+        // Entry indexes per auction, keeping submission order inside each group
+        private List<int[]> groupByAuction(List<BidRequest> batch) {
+            Map<Long, IndexList> groups = new LinkedHashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                groups.computeIfAbsent(batch.get(i).getAuctionId(), k -> new IndexList()).add(i);
+            }
+            List<int[]> out = new ArrayList<>(groups.size());
+            for (IndexList g : groups.values()) out.add(Arrays.copyOf(g.idxs, g.size));
+            return out;
+        }
+
+        private static final class IndexList {
+            int[] idxs = new int[4];
+            int size;
+            void add(int i) {
+                if (size == idxs.length) idxs = Arrays.copyOf(idxs, size * 2);
+                idxs[size++] = i;
+            }
+        }
+
+        private boolean[] applyGroup(User bidder, List<BidRequest> batch, int[] idxs, Instant now) {
+            long auctionId = batch.get(idxs[0]).getAuctionId();
+            Bid[] bids = new Bid[idxs.length];
+            for (int j = 0; j < bids.length; j++) bids[j] = new Bid(bidder, batch.get(idxs[j]).getAmount(), now);
+            boolean[] ok = new boolean[bids.length];
+            SealedBook book = sealed.get(auctionId);
+            if (book != null) {
+                for (int j = 0; j < bids.length; j++) ok[j] = placeSealed(auctionId, book, bids[j]);
+                return ok;
+            }
+            long window = softCloseSec, extend = extendSec;
+            Auction[] base = new Auction[1];
+            Auction after = update(auctionId, a -> { base[0] = a; return a.withBids(bids, ok, window, extend); });
+            if (after == null) Arrays.fill(ok, false);
+            else {
+                bidsPublished(base[0], after);
+                if (after.getType() == AuctionType.DUTCH) closed(after);
+            }
+            return ok;
+        }
+
+        // Secondary bookkeeping once a snapshot with new bids is visible
+        private void bidsPublished(Auction before, Auction after) {
+            if (!after.getEndsAt().equals(before.getEndsAt())) {
+                deadlines.add(new Deadline(after.getEndsAt(), after.getId()));
+            }
+            if (rankingsEnabled) {
+                rankings.onBid(after.getId(), after.getBidCount() - before.getBidCount(),
+                        after.getCurrentPrice() - before.getCurrentPrice(), after.getLastBid().getTime(), after.getEndsAt());
+            }
+            activity.onBid(after.getId(), after.getLastBid().getBidder());
+            User outbid = before.getHighestBidder();
+            if (outbid != null && !outbid.equals(after.getHighestBidder())) notifier.outbid(outbid, after);
+            // a Dutch take closes the auction, and closed() publishes the same snapshot
+            if (after.getType() != AuctionType.DUTCH) published(after);
+        }
+
+        // Closed snapshot for cur, revealing the result of a sealed auction
+        private Auction closing(Auction cur) {
+            SealedBook book = sealed.get(cur.getId());
+            return book == null ? cur.withClosed() : cur.withResult(book.resolve(cur));
+        }
+
+        private void closed(Auction a) {
+            sealed.remove(a.getId());
+            if (rankingsEnabled) rankings.onClose(a.getId());
+            activity.onClose(a);
+            recentlyClosed.add(a.getId());
+            if (cold != null) closedOrder.add(new Deadline(clock.instant(), a.getId()));
+            published(a);
+        }
+
+        // Demote auctions whose retention has passed. The snapshot is written to disk before it
+        // leaves the map, so a concurrent reader always finds it in one tier or the other.
+        private void demoteClosed(Instant now) {
+            AuctionColdStore store = cold;
+            if (store == null) return;
+            Instant cutoff = now.minus(hotRetention);
+            synchronized (closedOrder) {
+                Deadline d;
+                while ((d = closedOrder.peek()) != null && d.at.isBefore(cutoff)) {
+                    closedOrder.poll();
+                    Auction a = auctions.get(d.auctionId);
+                    if (a == null || !a.isClosed()) continue;
+                    store.put(a);
+                    auctions.remove(a.getId(), a);
+                }
+            }
+        }
+
+        // Hot map first, then the cold tier
+        private Auction lookup(long id) {
+            Auction a = auctions.get(id);
+            AuctionColdStore store = cold;
+            return a != null || store == null ? a : store.get(id);
+        }
+
+        // Auctions closed since the previous call, each returned once
+        public List<Auction> drainClosed() {
+            List<Auction> out = new ArrayList<>();
+            Long id;
+            while ((id = recentlyClosed.poll()) != null) {
+                Auction a = lookup(id);
+                if (a != null) out.add(a);
+            }
+            return out;
+        }
+
+        public AuctionRankings getRankings() { return rankings; }
+
+        public void addUpdateListener(UpdateListener l) { updateListeners.add(l); }
+        public void removeUpdateListener(UpdateListener l) { updateListeners.remove(l); }
+
+        private void published(Auction a) {
+            for (UpdateListener l : updateListeners) l.updated(a);
+        }
+
+        // Take leaderboard bookkeeping off the bid path when nothing reads the rankings;
+        // call before taking traffic, the boards stay empty from then on
+        public void disableRankings() { rankingsEnabled = false; }
+        public OutbidNotifier getNotifier() { return notifier; }
+
+        // A page of the user's auctions for one relation, newest first; pass the last id
+        // of the previous page as cursor (0 for the first page)
+        public List<Auction> getUserAuctions(User u, UserActivityIndex.Relation relation, long cursor, int limit) {
+            List<Auction> out = new ArrayList<>();
+            for (long id : activity.page(u.getId(), relation, cursor, limit)) {
+                Auction a = lookup(id);
+                if (a != null) out.add(a);
+            }
+            return out;
+        }
+
+        // Copy-on-write update: apply fn to the latest snapshot and publish the result with a CAS,
+        // retrying if another writer got there first. Returns the published snapshot, or null
+        // if the auction is missing or fn rejected the change.
+        private Auction update(long id, java.util.function.UnaryOperator<Auction> fn) {
+            while (true) {
+                Auction cur = auctions.get(id);
+                if (cur == null) return null;
+                Auction next = fn.apply(cur);
+                if (next == null) return null;
+                if (auctions.replace(id, cur, next)) return next;
+            }
         }
 
         public List<Auction> listActiveAuctions() {
@@ -178,35 +726,64 @@ public class OnlineAuctionSystem {
                     .collect(Collectors.toList());
         }
 
-        public Auction getAuction(long id) { return auctions.get(id); }
+        public Auction getAuction(long id) { return lookup(id); }
 
+        // A user opening an auction's details. Same result as getAuction, kept separate so
+        // traffic capture can tell real views from lookups made on the way to other actions
+        public Auction viewAuction(long id) { return lookup(id); }
+
+        // Conditional read: the latest snapshot if its version differs from knownVersion,
+        // otherwise null (also null if the auction does not exist)
+        public Auction getAuctionIfChanged(long id, long knownVersion) {
+            Auction a = lookup(id);
+            if (a == null || a.getVersion() == knownVersion) return null;
+            return a;
+        }
+
+        // Close auctions whose deadline has passed. Only due entries are visited; an entry
+        // superseded by an extension finds the auction's end still in the future and is dropped.
         public void expireAuctions() {
-            Instant now = Instant.now();
-            for (Auction a : auctions.values()) {
-                if (!a.isClosed() && now.isAfter(a.getEndsAt())) a.setClosed(true);
+            Instant now = clock.instant();
+            NavigableSet<Deadline> due = deadlines.headSet(new Deadline(now, Long.MIN_VALUE), false);
+            Deadline d;
+            while ((d = due.pollFirst()) != null) {
+                Auction a = update(d.auctionId, cur -> now.isAfter(cur.getEndsAt()) ? closing(cur) : null);
+                if (a != null) closed(a);
             }
+            demoteClosed(now);
         }
 
         public boolean closeAuction(long id) {
-            Auction a = auctions.get(id);
-            if (a == null || a.isClosed()) return false;
-            a.setClosed(true);
+            Auction a = update(id, cur -> cur.isClosed() ? null : closing(cur));
+            if (a == null) return false;
+            closed(a);
             return true;
         }
     }
 
     // ---------- MAIN PROGRAM ----------
-    private static final AuctionService service = new AuctionService();
+    private static AuctionService service = new AuctionService();
     private static final Scanner scanner = new Scanner(System.in);
     private static User currentUser = null;
 
-    public static void main(String[] args) {
+    // --record <file> captures the session as a TrafficTrace for later replay
+    public static void main(String[] args) throws java.io.IOException {
+        if (args.length == 2 && args[0].equals("--record")) {
+            TrafficTrace.RecordingService recorder = new TrafficTrace.RecordingService(java.nio.file.Paths.get(args[1]));
+            service = recorder;
+            // flush the trace however the session ends: option 8, end of input, an error or Ctrl-C
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try { recorder.close(); } catch (java.io.IOException ignored) {}
+            }, "trace-close"));
+        }
         seedDemoData();
+        service.getNotifier().addSink(OutbidNotifier.consoleSink());
         System.out.println("=== Simple Online Auction System (Single File Demo) ===");
 
         while (true) {
             service.expireAuctions();
             showMenu();
+            if (!scanner.hasNextLine()) return;
             String cmd = scanner.nextLine().trim();
 
             switch (cmd) {
@@ -217,7 +794,11 @@ public class OnlineAuctionSystem {
                 case "5" -> viewAuction();
                 case "6" -> placeBid();
                 case "7" -> closeAuction();
-                case "8" -> { System.out.println("Goodbye!"); return; }
+                case "8" -> {
+                    if (service instanceof TrafficTrace.RecordingService r) r.close();
+                    System.out.println("Goodbye!");
+                    return;
+                }
                 default -> System.out.println("Unknown option.");
             }
         }
@@ -272,7 +853,22 @@ public class OnlineAuctionSystem {
         double start = Double.parseDouble(scanner.nextLine().trim());
         System.out.print("Duration (seconds): ");
         long dur = Long.parseLong(scanner.nextLine().trim());
-        Auction a = service.createAuction(title, desc, start, dur, currentUser);
+        System.out.print("Type (english/sealed/vickrey/dutch) [english]: ");
+        String type = scanner.nextLine().trim().toLowerCase();
+        Auction a;
+        switch (type) {
+            case "", "english" -> a = service.createAuction(title, desc, start, dur, currentUser);
+            case "sealed" -> a = service.createAuction(title, desc, Auction.DEFAULT_CATEGORY, start, dur, currentUser, AuctionType.SEALED_FIRST_PRICE);
+            case "vickrey" -> a = service.createAuction(title, desc, Auction.DEFAULT_CATEGORY, start, dur, currentUser, AuctionType.VICKREY);
+            case "dutch" -> {
+                System.out.print("Floor price: ");
+                double floor = Double.parseDouble(scanner.nextLine().trim());
+                System.out.print("Price drop interval (seconds): ");
+                long interval = Long.parseLong(scanner.nextLine().trim());
+                a = service.createDutchAuction(title, desc, Auction.DEFAULT_CATEGORY, start, floor, interval, dur, currentUser);
+            }
+            default -> { System.out.println("Unknown auction type."); return; }
+        }
         System.out.println("Created auction: ID=" + a.getId() + " (" + a.getTitle() + ")");
     }
 
@@ -289,7 +885,7 @@ public class OnlineAuctionSystem {
     private static void viewAuction() {
         System.out.print("Auction ID: ");
         long id = Long.parseLong(scanner.nextLine().trim());
-        Auction a = service.getAuction(id);
+        Auction a = service.viewAuction(id);
         if (a == null) { System.out.println("Not found."); return; }
         System.out.println(a.fullString());
     }
@@ -0,0 +1,261 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Asynchronous "you were outbid" notifications.
+//
+// placeBid only adds to a lock-free queue, bounded by an atomic count (and does
+// nothing at all while no sink is registered); when the queue is full the event is
+// dropped and counted. Nothing wakes the dispatcher per event: it sleeps until the
+// oldest pending notice is due, and producers only unpark it each time another
+// eighth of the queue fills up. A single daemon dispatcher coalesces repeated outbids of the same user on
+// the same auction within the coalescing window into one notice carrying the latest
+// price, then hands due notices to every sink in batches.
+public class OutbidNotifier {
+
+    // One coalesced notification
+    public static class Notice {
+        private final OnlineAuctionSystem.User user;
+        private final long auctionId;
+        private final String title;
+        private double price;
+        private int times = 1;
+        private final long firstNanos;
+        private Instant at;
+
+        Notice(Event e) {
+            this.user = e.user;
+            this.auctionId = e.auctionId;
+            this.title = e.title;
+            this.price = e.price;
+            this.firstNanos = e.nanos;
+            this.at = e.at;
+        }
+
+        public OnlineAuctionSystem.User getUser() { return user; }
+        public long getAuctionId() { return auctionId; }
+        public String getTitle() { return title; }
+        // Price of the latest bid that outbid the user
+        public double getPrice() { return price; }
+        // Number of outbid events folded into this notice
+        public int getTimes() { return times; }
+        public Instant getAt() { return at; }
+
+        @Override
+        public String toString() {
+            return String.format("%s outbid on #%d '%s' at %.2f%s", user.getUsername(), auctionId, title, price,
+                    times > 1 ? " (" + times + " times)" : "");
+        }
+    }
+
+    // Receives batches of notices on the dispatcher thread
+    @FunctionalInterface
+    public interface Sink {
+        void deliver(List<Notice> batch) throws IOException;
+    }
+
+    private static final class Event {
+        final OnlineAuctionSystem.User user;
+        final long auctionId;
+        final String title;
+        final double price;
+        final Instant at;
+        final long nanos = System.nanoTime();
+
+        Event(OnlineAuctionSystem.User user, OnlineAuctionSystem.Auction a) {
+            this.user = user;
+            this.auctionId = a.getId();
+            this.title = a.getTitle();
+            this.price = a.getCurrentPrice();
+            this.at = a.getLastBid().getTime();
+        }
+    }
+
+    private static final class Key {
+        final long userId;
+        final long auctionId;
+        Key(long userId, long auctionId) { this.userId = userId; this.auctionId = auctionId; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return k.userId == userId && k.auctionId == auctionId;
+        }
+
+        @Override
+        public int hashCode() { return Long.hashCode(userId) * 31 + Long.hashCode(auctionId); }
+    }
+
+    private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int capacity;
+    private final int wakeEvery;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final List<Sink> sinks = new CopyOnWriteArrayList<>();
+    // Pending notices in first-seen order, so the head is always the next one due
+    private final LinkedHashMap<Key, Notice> pending = new LinkedHashMap<>();
+    private volatile Thread dispatcher;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private volatile long coalesced, delivered, batches, sinkErrors;
+    private volatile long latencyTotalNanos, latencyMaxNanos;
+
+    public OutbidNotifier(int capacity, Duration window, int maxBatch) {
+        this.capacity = capacity;
+        this.wakeEvery = Math.max(1, capacity / 8);
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+    }
+
+    public synchronized void addSink(Sink sink) {
+        sinks.add(sink);
+        if (dispatcher == null) {
+            dispatcher = new Thread(this::dispatch, "outbid-notifier");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    // Called on the bid path: no locks, never blocks
+    public void outbid(OnlineAuctionSystem.User user, OnlineAuctionSystem.Auction after) {
+        if (sinks.isEmpty()) return;
+        int n = queued.incrementAndGet();
+        if (n > capacity) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.add(new Event(user, after));
+        accepted.incrementAndGet();
+        if (n % wakeEvery == 0) LockSupport.unpark(dispatcher);
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Event e;
+            while ((e = queue.poll()) != null) {
+                queued.decrementAndGet();
+                coalesce(e);
+            }
+            flushDue(System.nanoTime());
+            long wait = pending.isEmpty() ? TimeUnit.SECONDS.toNanos(1)
+                    : pending.values().iterator().next().firstNanos + windowNanos - System.nanoTime();
+            // an event is never due before its window, so picking it up on the next wake-up
+            // is on time; a filling queue unparks it early
+            if (wait > 0) LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    private void coalesce(Event e) {
+        Key k = new Key(e.user.getId(), e.auctionId);
+        Notice n = pending.get(k);
+        if (n == null) {
+            pending.put(k, new Notice(e));
+            return;
+        }
+        n.price = Math.max(n.price, e.price);
+        n.at = e.at;
+        n.times++;
+        coalesced++;
+    }
+
+    private void flushDue(long now) {
+        List<Notice> batch = new ArrayList<>();
+        Iterator<Notice> it = pending.values().iterator();
+        while (it.hasNext()) {
+            Notice n = it.next();
+            if (n.firstNanos + windowNanos > now) break;
+            it.remove();
+            batch.add(n);
+            if (batch.size() == maxBatch) { deliver(batch, now); batch = new ArrayList<>(); }
+        }
+        if (!batch.isEmpty()) deliver(batch, now);
+    }
+
+    private void deliver(List<Notice> batch, long now) {
+        List<Notice> view = Collections.unmodifiableList(batch);
+        for (Sink s : sinks) {
+            try { s.deliver(view); } catch (IOException | RuntimeException ex) { sinkErrors++; }
+        }
+        long total = latencyTotalNanos, max = latencyMaxNanos;
+        for (Notice n : batch) {
+            long l = now - n.firstNanos;
+            total += l;
+            if (l > max) max = l;
+        }
+        latencyTotalNanos = total;
+        latencyMaxNanos = max;
+        delivered += batch.size();
+        batches++;
+    }
+
+    // ---------- METRICS ----------
+    public long getAccepted() { return accepted.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getCoalesced() { return coalesced; }
+    public long getDelivered() { return delivered; }
+    public long getBatches() { return batches; }
+    public long getSinkErrors() { return sinkErrors; }
+    public int getQueueDepth() { return queued.get(); }
+    // Outbid-to-delivery latency of delivered notices, measured from the first coalesced event
+    public double getMeanLatencyMillis() { return delivered == 0 ? 0 : latencyTotalNanos / 1e6 / delivered; }
+    public double getMaxLatencyMillis() { return latencyMaxNanos / 1e6; }
+
+    public String metrics() {
+        return String.format("outbid: accepted=%d dropped=%d coalesced=%d delivered=%d batches=%d sinkErrors=%d queue=%d latency mean=%.1fms max=%.1fms",
+                getAccepted(), getDropped(), getCoalesced(), getDelivered(), getBatches(), getSinkErrors(),
+                getQueueDepth(), getMeanLatencyMillis(), getMaxLatencyMillis());
+    }
+
+    // ---------- SINKS ----------
+
+    public static Sink consoleSink() {
+        return batch -> { for (Notice n : batch) System.out.println("[notice] " + n); };
+    }
+
+    // Keeps every delivered notice for inspection, e.g. in tests
+    public static class QueueSink implements Sink {
+        private final BlockingQueue<Notice> notices = new LinkedBlockingQueue<>();
+
+        @Override
+        public void deliver(List<Notice> batch) { notices.addAll(batch); }
+
+        public BlockingQueue<Notice> getNotices() { return notices; }
+    }
+
+    // Appends one line per notice to a local file
+    public static class FileSink implements Sink {
+        private final Path file;
+
+        public FileSink(Path file) { this.file = file; }
+
+        @Override
+        public void deliver(List<Notice> batch) throws IOException {
+            try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (Notice n : batch) {
+                    w.write(n.getAt() + "\t" + n.getUser().getUsername() + "\t" + n.getAuctionId() + "\t"
+                            + String.format("%.2f", n.getPrice()) + "\t" + n.getTimes());
+                    w.newLine();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,430 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Capture and replay of AuctionService traffic for load regression testing.
+//
+// RecordingService wraps the service operations behind the console menu (register,
+// login, create, bid, list, view, close) and appends each call to a compact binary
+// trace with its offset from the start of the recording. A replay decodes the whole
+// trace up front, partitions it so each auction's create/bid/view/close stay in order
+// on one thread, then drives a fresh service at the original pace, scaled, or flat
+// out. Passwords never reach the trace: each is replaced by a token hashed with a
+// salt that lives only as long as the recording, so a replay that registers and logs
+// in with the tokens still succeeds or fails exactly as the original calls did.
+// Users and replayed ids are resolved before the first clock read, so only the
+// service call itself sits between the two clock reads, and the
+// per-operation latency report reflects the build under test, and two reports from
+// different builds on the same trace can be compared line by line.
+//
+// Usage:
+//   java TrafficTrace synth <trace> [ops] [seed]
+//   java TrafficTrace replay <trace> [speed|max] [threads] [report]
+//   java TrafficTrace compare <baseline report> <candidate report>
+public class TrafficTrace {
+
+    static final int MAGIC = 0x43525441;   // "ATRC"
+    static final byte REGISTER = 0, LOGIN = 1, CREATE = 2, BID = 3, LIST = 4, VIEW = 5, CLOSE = 6;
+    static final String[] OPS = {"register", "login", "create", "bid", "list", "view", "close"};
+
+    // ---------- RECORDING ----------
+    public static class RecordingService extends OnlineAuctionSystem.AuctionService implements Closeable {
+        private final DataOutputStream out;
+        private final long start = System.nanoTime();
+        private final byte[] salt = new byte[16];
+        private long last;
+
+        public RecordingService(Path trace) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(trace), 1 << 16));
+            out.writeInt(MAGIC);
+            new SecureRandom().nextBytes(salt);
+        }
+
+        @Override
+        public OnlineAuctionSystem.User registerUser(String username, String password) {
+            long t = System.nanoTime();
+            OnlineAuctionSystem.User u = super.registerUser(username, password);
+            String token = token(password);
+            write(REGISTER, t, o -> { o.writeUTF(username); o.writeUTF(token); });
+            return u;
+        }
+
+        @Override
+        public OnlineAuctionSystem.User login(String username, String password) {
+            long t = System.nanoTime();
+            OnlineAuctionSystem.User u = super.login(username, password);
+            String token = token(password);
+            write(LOGIN, t, o -> { o.writeUTF(username); o.writeUTF(token); });
+            return u;
+        }
+
+        // One-way stand-in for a password; equal passwords map to equal tokens within one trace
+        private String token(String password) {
+            try {
+                MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                sha.update(salt);
+                byte[] digest = sha.digest(String.valueOf(password).getBytes(StandardCharsets.UTF_8));
+                return Base64.getEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12));
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("SHA-256 unavailable", ex);
+            }
+        }
+
+        @Override
+        public OnlineAuctionSystem.Auction createAuction(String title, String desc, String category, double start,
+                                                         long durationSec, OnlineAuctionSystem.User owner,
+                                                         OnlineAuctionSystem.AuctionType type) {
+            long t = System.nanoTime();
+            OnlineAuctionSystem.Auction a = super.createAuction(title, desc, category, start, durationSec, owner, type);
+            writeCreate(t, a, durationSec);
+            return a;
+        }
+
+        @Override
+        public OnlineAuctionSystem.Auction createDutchAuction(String title, String desc, String category, double start,
+                                                              double floor, long dropIntervalSec, long durationSec,
+                                                              OnlineAuctionSystem.User owner) {
+            long t = System.nanoTime();
+            OnlineAuctionSystem.Auction a = super.createDutchAuction(title, desc, category, start, floor, dropIntervalSec, durationSec, owner);
+            writeCreate(t, a, durationSec);
+            return a;
+        }
+
+        private void writeCreate(long t, OnlineAuctionSystem.Auction a, long durationSec) {
+            write(CREATE, t, o -> {
+                o.writeUTF(a.getOwner().getUsername()); o.writeUTF(a.getTitle()); o.writeUTF(a.getDescription());
+                o.writeUTF(a.getCategory()); o.writeByte(a.getType().ordinal()); o.writeDouble(a.getStartingPrice());
+                o.writeDouble(a.getFloorPrice()); writeVarLong(o, a.getDropIntervalSec());
+                writeVarLong(o, durationSec); writeVarLong(o, a.getId());
+            });
+        }
+
+        @Override
+        public boolean placeBid(long auctionId, OnlineAuctionSystem.User bidder, double amount) {
+            long t = System.nanoTime();
+            boolean ok = super.placeBid(auctionId, bidder, amount);
+            write(BID, t, o -> { o.writeUTF(bidder.getUsername()); writeVarLong(o, auctionId); o.writeDouble(amount); });
+            return ok;
+        }
+
+        @Override
+        public List<OnlineAuctionSystem.Auction> listActiveAuctions() {
+            long t = System.nanoTime();
+            List<OnlineAuctionSystem.Auction> list = super.listActiveAuctions();
+            write(LIST, t, o -> {});
+            return list;
+        }
+
+        // Only explicit detail views are recorded; getAuction lookups that precede a bid or
+        // close are part of those operations, not traffic of their own
+        @Override
+        public OnlineAuctionSystem.Auction viewAuction(long id) {
+            long t = System.nanoTime();
+            OnlineAuctionSystem.Auction a = super.viewAuction(id);
+            write(VIEW, t, o -> writeVarLong(o, id));
+            return a;
+        }
+
+        @Override
+        public boolean closeAuction(long id) {
+            long t = System.nanoTime();
+            boolean ok = super.closeAuction(id);
+            write(CLOSE, t, o -> writeVarLong(o, id));
+            return ok;
+        }
+
+        private interface Body { void write(DataOutputStream o) throws IOException; }
+
+        private synchronized void write(byte op, long t, Body body) {
+            try {
+                long at = Math.max(last, t - start);     // keep offsets monotonic in file order
+                out.writeByte(op);
+                writeVarLong(out, at - last);
+                body.write(out);
+                last = at;
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Trace write failed", ex);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException { out.close(); }
+    }
+
+    static void writeVarLong(DataOutput o, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            o.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        o.writeByte((int) v);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+
+    // ---------- DECODED TRACE ----------
+    static final class Op {
+        byte type;
+        long atNanos;
+        String user, pw, title, desc, category;
+        OnlineAuctionSystem.AuctionType auctionType;
+        double amount, floor;
+        long auctionId, durationSec, dropIntervalSec;
+    }
+
+    // A capture cut off mid-record (killed process, lost final buffer) loads up to its
+    // last complete record
+    public static List<Op> load(Path trace) throws IOException {
+        List<Op> ops = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(trace), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a traffic trace: " + trace);
+            long at = 0;
+            while (true) {
+                int type = in.read();
+                if (type < 0) break;
+                Op op = new Op();
+                op.type = (byte) type;
+                try {
+                    at += readVarLong(in);
+                    op.atNanos = at;
+                    readBody(in, op);
+                } catch (EOFException truncated) {
+                    break;
+                }
+                ops.add(op);
+            }
+        }
+        return ops;
+    }
+
+    private static void readBody(DataInputStream in, Op op) throws IOException {
+        switch (op.type) {
+            case REGISTER, LOGIN -> { op.user = in.readUTF(); op.pw = in.readUTF(); }
+            case CREATE -> {
+                op.user = in.readUTF(); op.title = in.readUTF(); op.desc = in.readUTF(); op.category = in.readUTF();
+                op.auctionType = OnlineAuctionSystem.AuctionType.values()[in.readByte()];
+                op.amount = in.readDouble(); op.floor = in.readDouble(); op.dropIntervalSec = readVarLong(in);
+                op.durationSec = readVarLong(in); op.auctionId = readVarLong(in);
+            }
+            case BID -> { op.user = in.readUTF(); op.auctionId = readVarLong(in); op.amount = in.readDouble(); }
+            case VIEW, CLOSE -> op.auctionId = readVarLong(in);
+            case LIST -> { }
+            default -> throw new IOException("Corrupt trace: op " + op.type);
+        }
+    }
+
+    // ---------- REPLAY ----------
+    // speed: 1 = original pace, 10 = ten times faster, 0 = as fast as possible
+    public static LatencyHistogram[] replay(List<Op> ops, OnlineAuctionSystem.AuctionService target, double speed, int threads)
+            throws InterruptedException {
+        List<List<Op>> parts = new ArrayList<>();
+        for (int i = 0; i < threads; i++) parts.add(new ArrayList<>());
+        int rr = 0;
+        for (Op op : ops) {
+            int p = switch (op.type) {
+                case REGISTER, LOGIN -> Math.floorMod(op.user.hashCode(), threads);
+                case LIST -> rr++ % threads;
+                default -> (int) Math.floorMod(op.auctionId, (long) threads);
+            };
+            parts.get(p).add(op);
+        }
+
+        Map<Long, Long> ids = new ConcurrentHashMap<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        LatencyHistogram[][] hists = new LatencyHistogram[threads][OPS.length];
+        CountDownLatch go = new CountDownLatch(1);
+        long[] startAt = new long[1];
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            List<Op> mine = parts.get(w);
+            LatencyHistogram[] h = hists[w];
+            for (int i = 0; i < h.length; i++) h[i] = new LatencyHistogram();
+            workers[w] = new Thread(() -> {
+                try {
+                    go.await();
+                    long base = startAt[0];
+                    for (Op op : mine) {
+                        if (failure.get() != null) return;
+                        if (speed > 0) pace(base + (long) (op.atNanos / speed));
+                        // resolve the user and the replayed id outside the timed region, so waiting
+                        // for another partition's REGISTER never counts as service latency
+                        OnlineAuctionSystem.User user = op.type == CREATE || op.type == BID ? awaitUser(target, op.user, failure) : null;
+                        Long id = op.type == BID || op.type == VIEW || op.type == CLOSE ? ids.get(op.auctionId) : null;
+                        long t0 = System.nanoTime();
+                        apply(op, target, user, id, ids);
+                        h[op.type].record(System.nanoTime() - t0);
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }, "replay-" + w);
+            workers[w].start();
+        }
+        startAt[0] = System.nanoTime();
+        go.countDown();
+        for (Thread t : workers) t.join();
+        if (failure.get() != null) throw new IllegalStateException("Replay failed", failure.get());
+
+        LatencyHistogram[] total = new LatencyHistogram[OPS.length];
+        for (int i = 0; i < OPS.length; i++) {
+            total[i] = new LatencyHistogram();
+            for (LatencyHistogram[] h : hists) total[i].merge(h[i]);
+        }
+        return total;
+    }
+
+    private static void pace(long due) {
+        long wait;
+        while ((wait = due - System.nanoTime()) > 0) {
+            if (wait > 100_000) LockSupport.parkNanos(wait - 50_000);
+            else Thread.onSpinWait();
+        }
+    }
+
+    // Only service calls; user is resolved for CREATE/BID and id for BID/VIEW/CLOSE
+    private static void apply(Op op, OnlineAuctionSystem.AuctionService s, OnlineAuctionSystem.User user, Long id,
+                              Map<Long, Long> ids) {
+        switch (op.type) {
+            case REGISTER -> s.registerUser(op.user, op.pw);
+            case LOGIN -> s.login(op.user, op.pw);
+            case CREATE -> {
+                OnlineAuctionSystem.User owner = user;
+                OnlineAuctionSystem.Auction a = op.auctionType == OnlineAuctionSystem.AuctionType.DUTCH
+                        ? s.createDutchAuction(op.title, op.desc, op.category, op.amount, op.floor, op.dropIntervalSec, op.durationSec, owner)
+                        : s.createAuction(op.title, op.desc, op.category, op.amount, op.durationSec, owner, op.auctionType);
+                ids.put(op.auctionId, a.getId());
+            }
+            case BID -> {
+                if (id != null) s.placeBid(id, user, op.amount);
+            }
+            case LIST -> s.listActiveAuctions();
+            case VIEW -> {
+                OnlineAuctionSystem.Auction a = id == null ? null : s.viewAuction(id);
+                if (a != null) a.fullString();
+            }
+            default -> {
+                if (id != null) s.closeAuction(id);
+            }
+        }
+    }
+
+    // Users are registered on the thread owning their name; others wait briefly for them,
+    // giving up early if another worker has already failed
+    private static OnlineAuctionSystem.User awaitUser(OnlineAuctionSystem.AuctionService s, String name,
+                                                      AtomicReference<Throwable> failure) {
+        OnlineAuctionSystem.User u;
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while ((u = s.getUserByName(name)) == null) {
+            if (System.nanoTime() > deadline) throw new IllegalStateException("Trace uses unknown user " + name);
+            if (failure.get() != null) throw new IllegalStateException("Replay aborted");
+            Thread.onSpinWait();
+        }
+        return u;
+    }
+
+    // ---------- REPORTS ----------
+    // One line per operation: name count mean p50 p99 p99.9 max (microseconds)
+    public static String report(LatencyHistogram[] h) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < OPS.length; i++) {
+            if (h[i].getCount() == 0) continue;
+            sb.append(String.format(Locale.ROOT, "%-8s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n", OPS[i], h[i].getCount(),
+                    h[i].getMeanNanos() / 1e3, h[i].percentileNanos(50) / 1e3, h[i].percentileNanos(99) / 1e3,
+                    h[i].percentileNanos(99.9) / 1e3, h[i].getMaxNanos() / 1e3));
+        }
+        return sb.toString();
+    }
+
+    public static String compare(List<String> baseline, List<String> candidate) {
+        Map<String, double[]> a = parse(baseline), b = parse(candidate);
+        String[] cols = {"mean", "p50", "p99", "p99.9", "max"};
+        StringBuilder sb = new StringBuilder(String.format("%-8s %-6s %10s %10s %8s%n", "op", "stat", "base(us)", "cand(us)", "change"));
+        for (String op : a.keySet()) {
+            double[] x = a.get(op), y = b.get(op);
+            if (y == null) continue;
+            for (int i = 0; i < cols.length; i++) {
+                sb.append(String.format(Locale.ROOT, "%-8s %-6s %10.2f %10.2f %+7.1f%%%n", op, cols[i], x[i + 1], y[i + 1],
+                        x[i + 1] == 0 ? 0 : (y[i + 1] - x[i + 1]) * 100 / x[i + 1]));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, double[]> parse(List<String> lines) {
+        Map<String, double[]> out = new LinkedHashMap<>();
+        for (String line : lines) {
+            String[] f = line.trim().split("\\s+");
+            if (f.length != 7) continue;
+            double[] v = new double[6];
+            for (int i = 0; i < 6; i++) v[i] = Double.parseDouble(f[i + 1]);
+            out.put(f[0], v);
+        }
+        return out;
+    }
+
+    // ---------- SYNTHETIC TRACE ----------
+    // Records a random menu-style session mix, for trying the replay without a live capture
+    static void synth(Path trace, int ops, long seed) throws IOException {
+        Random rnd = new Random(seed);
+        try (RecordingService s = new RecordingService(trace)) {
+            List<OnlineAuctionSystem.User> users = new ArrayList<>();
+            List<Long> auctions = new ArrayList<>();
+            for (int i = 0; i < ops; i++) {
+                int pick = rnd.nextInt(100);
+                if (users.size() < 10 || pick < 5) users.add(s.registerUser("user" + users.size(), "pw"));
+                else if (pick < 10) s.login(users.get(rnd.nextInt(users.size())).getUsername(), "pw");
+                else if (auctions.size() < 10 || pick < 20) {
+                    auctions.add(s.createAuction("Lot", "synthetic", "General", 10, 3600, users.get(rnd.nextInt(users.size()))).getId());
+                } else if (pick < 80) {
+                    long id = auctions.get(rnd.nextInt(auctions.size()));
+                    OnlineAuctionSystem.Auction a = s.getAuction(id);
+                    s.placeBid(id, users.get(rnd.nextInt(users.size())), a.getCurrentPrice() + 1 + rnd.nextInt(5));
+                } else if (pick < 82) s.listActiveAuctions();
+                else if (pick < 98) s.viewAuction(auctions.get(rnd.nextInt(auctions.size())));
+                else s.closeAuction(auctions.get(rnd.nextInt(auctions.size())));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: TrafficTrace synth <trace> [ops] [seed] | replay <trace> [speed|max] [threads] [report] | compare <a> <b>");
+            return;
+        }
+        switch (args[0]) {
+            case "synth" -> synth(Paths.get(args[1]), args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000,
+                    args.length > 3 ? Long.parseLong(args[3]) : 42);
+            case "replay" -> {
+                List<Op> ops = load(Paths.get(args[1]));
+                double speed = args.length > 2 && !args[2].equals("max") ? Double.parseDouble(args[2]) : 0;
+                int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+                long t0 = System.nanoTime();
+                LatencyHistogram[] h = replay(ops, new OnlineAuctionSystem.AuctionService(), speed, threads);
+                double secs = (System.nanoTime() - t0) / 1e9;
+                System.out.printf("replayed %d ops on %d threads in %.2fs (%.0f ops/s)%n", ops.size(), threads, secs, ops.size() / secs);
+                String report = report(h);
+                System.out.print(report);
+                if (args.length > 4) Files.writeString(Paths.get(args[4]), report);
+            }
+            case "compare" -> System.out.print(compare(Files.readAllLines(Paths.get(args[1])), Files.readAllLines(Paths.get(args[2]))));
+            default -> System.out.println("Unknown command: " + args[0]);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongFunction;
+
+// Per-user secondary indexes over auction ids: auctions a user owns, has bid on,
+// is currently leading and has won. Maintained incrementally by AuctionService on
+// create, bid and close, so a user's dashboard never scans the auction map.
+//
+// Pages are keyset-based and newest first: pass the last id of the previous page
+// as the cursor (0 for the first page).
+public class UserActivityIndex {
+
+    public enum Relation { OWNED, BID_ON, LEADING, WON }
+
+    private static final int STRIPES = 64;
+
+    private static final class Activity {
+        final NavigableSet<Long> owned = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+        final NavigableSet<Long> bidOn = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+        final NavigableSet<Long> leading = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+        final NavigableSet<Long> won = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+
+        NavigableSet<Long> of(Relation r) {
+            return switch (r) {
+                case OWNED -> owned;
+                case BID_ON -> bidOn;
+                case LEADING -> leading;
+                case WON -> won;
+            };
+        }
+    }
+
+    private final Map<Long, Activity> byUser = new ConcurrentHashMap<>();
+    // Leader currently recorded in the index per open auction
+    private final Map<Long, Long> leaderOf = new ConcurrentHashMap<>();
+    private final Object[] stripes = new Object[STRIPES];
+    private final LongFunction<OnlineAuctionSystem.Auction> current;
+
+    // current resolves the latest published snapshot of an auction
+    public UserActivityIndex(LongFunction<OnlineAuctionSystem.Auction> current) {
+        this.current = current;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    public void onCreate(OnlineAuctionSystem.Auction a) {
+        activity(a.getOwner().getId()).owned.add(a.getId());
+    }
+
+    public void onBid(long auctionId, OnlineAuctionSystem.User bidder) {
+        activity(bidder.getId()).bidOn.add(auctionId);
+        // Bid bookkeeping for one auction can run out of order across threads, so the
+        // leader is always taken from the latest snapshot rather than from the caller
+        synchronized (stripe(auctionId)) {
+            OnlineAuctionSystem.Auction a = current.apply(auctionId);
+            if (a == null || a.isClosed() || a.getHighestBidder() == null) return;
+            long leader = a.getHighestBidder().getId();
+            Long prev = leaderOf.put(auctionId, leader);
+            if (prev != null && prev == leader) return;
+            if (prev != null) activity(prev).leading.remove(auctionId);
+            activity(leader).leading.add(auctionId);
+        }
+    }
+
+    // The leader at close becomes the winner
+    public void onClose(OnlineAuctionSystem.Auction closed) {
+        synchronized (stripe(closed.getId())) {
+            Long prev = leaderOf.remove(closed.getId());
+            if (prev != null) activity(prev).leading.remove(closed.getId());
+            OnlineAuctionSystem.User winner = closed.getHighestBidder();
+            if (winner != null) activity(winner.getId()).won.add(closed.getId());
+        }
+    }
+
+    // Up to limit auction ids, newest first, strictly older than cursor (0 = from the start)
+    public List<Long> page(long userId, Relation relation, long cursor, int limit) {
+        Activity act = byUser.get(userId);
+        if (act == null) return Collections.emptyList();
+        NavigableSet<Long> ids = act.of(relation);
+        if (cursor > 0) ids = ids.tailSet(cursor, false);
+        List<Long> out = new ArrayList<>(Math.min(limit, 64));
+        for (Long id : ids) {
+            if (out.size() == limit) break;
+            out.add(id);
+        }
+        return out;
+    }
+
+    private Activity activity(long userId) {
+        return byUser.computeIfAbsent(userId, k -> new Activity());
+    }
+
+    private Object stripe(long auctionId) {
+        return stripes[(int) (auctionId & (STRIPES - 1))];
+    }
+}